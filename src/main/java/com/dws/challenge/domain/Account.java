@@ -1,11 +1,20 @@
 package com.dws.challenge.domain;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 import java.math.BigDecimal;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotEmpty;
@@ -22,6 +31,36 @@ public class Account {
     @Min(value = 0, message = "Initial balance must be positive.")
     private volatile BigDecimal balance;
 
+    /*
+     * Monotonically increasing version, bumped on every balance change. It is exposed as an ETag,
+     * so it is not a part of the JSON representation.
+     */
+    @JsonIgnore
+    @Setter(AccessLevel.NONE)
+    private volatile long version;
+
+    /*
+     * Random id of this account instance. The version restarts for every new instance, e.g. after a restart,
+     * so only the incarnation together with the version identifies a balance.
+     */
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    private final String incarnation = Long.toHexString(ThreadLocalRandom.current().nextLong());
+
+    /*
+     * Guards a transfer touching this account, so it can be acquired with a timeout.
+     */
+    @JsonIgnore
+    @Getter(AccessLevel.NONE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private final ReentrantLock transferLock = new ReentrantLock();
+
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private final AccountAuditState auditState = new AccountAuditState();
+
     public Account(String accountId) {
         this.accountId = accountId;
         this.balance = BigDecimal.ZERO;
@@ -34,20 +73,35 @@ public class Account {
         this.balance = balance;
     }
 
+    public void lock() {
+        transferLock.lock();
+    }
+
+    public boolean tryLock(long timeout, TimeUnit unit) throws InterruptedException {
+        return transferLock.tryLock(timeout, unit);
+    }
+
+    public void unlock() {
+        transferLock.unlock();
+    }
+
     public synchronized boolean withdraw(BigDecimal amount) {
         if (this.balance.compareTo(amount) < 0) {
             return false;
         }
         this.balance = this.balance.subtract(amount);
+        this.version++;
         return true;
     }
 
     public synchronized boolean deposit(BigDecimal amount) {
         this.balance = this.balance.add(amount);
+        this.version++;
         return true;
     }
 
     public synchronized void setBalance(BigDecimal balance) {
         this.balance = balance;
+        this.version++;
     }
 }
@@ -0,0 +1,24 @@
+package com.dws.challenge.domain;
+
+import java.math.BigDecimal;
+
+import lombok.Data;
+
+/*
+ * Bookkeeping of the money auditor for a single account. It is guarded by the account transfer lock.
+ */
+@Data
+public class AccountAuditState {
+
+    // createdEpoch of an account which has not been recorded by the auditor
+    public static final long UNREGISTERED = Long.MAX_VALUE;
+
+    // Audit epoch in which the account was created, the account is audited only after that
+    private long createdEpoch = UNREGISTERED;
+
+    // Balance at the cut of snapshotEpoch, saved by the first write after the cut or by the auditor
+    private long snapshotEpoch = -1;
+
+    private BigDecimal snapshotBalance;
+
+}
@@ -0,0 +1,42 @@
+package com.dws.challenge.domain;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+
+import lombok.AccessLevel;
+import lombok.Data;
+import lombok.Setter;
+
+/*
+ * A future-dated transfer. It is executed once, or every interval if the interval is set.
+ */
+@Data
+public class ScheduledTransfer {
+
+    private final String scheduleId;
+
+    private final String sourceAccountId;
+
+    private final String targetAccountId;
+
+    private final BigDecimal amount;
+
+    private final Duration interval;
+
+    private volatile Instant nextExecutionTime;
+
+    @JsonIgnore
+    @Setter(AccessLevel.NONE)
+    private volatile boolean cancelled;
+
+    public boolean isRecurring() {
+        return interval != null;
+    }
+
+    public void cancel() {
+        this.cancelled = true;
+    }
+}
@@ -0,0 +1,20 @@
+package com.dws.challenge.dto;
+
+import java.math.BigDecimal;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Data;
+
+@Data
+public class BalanceEventDto {
+
+    private final String accountId;
+
+    private final BigDecimal balance;
+
+    private final long version;
+
+    @JsonIgnore
+    private final String incarnation;
+
+}
@@ -0,0 +1,37 @@
+package com.dws.challenge.dto;
+
+import org.hibernate.validator.constraints.time.DurationMin;
+
+import javax.validation.constraints.Digits;
+import javax.validation.constraints.FutureOrPresent;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Positive;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+
+import lombok.Data;
+
+@Data
+public class TransferScheduleDto {
+
+    @NotEmpty
+    private String targetAccountId;
+
+    @NotNull
+    @Positive
+    @Digits(integer = 9, fraction = 2)
+    private BigDecimal amount;
+
+    @NotNull
+    @FutureOrPresent
+    private Instant executeAt;
+
+    /*
+     * Optional, the transfer is repeated with this interval when set.
+     */
+    @DurationMin(seconds = 1)
+    private Duration interval;
+
+}
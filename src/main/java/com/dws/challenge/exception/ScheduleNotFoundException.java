@@ -0,0 +1,8 @@
+package com.dws.challenge.exception;
+
+public class ScheduleNotFoundException extends AccountException {
+
+    public ScheduleNotFoundException(String scheduleId) {
+        super("Schedule id = " + scheduleId + " not found!");
+    }
+}
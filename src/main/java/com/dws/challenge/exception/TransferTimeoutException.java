@@ -0,0 +1,9 @@
+package com.dws.challenge.exception;
+
+public class TransferTimeoutException extends AccountException {
+
+    public TransferTimeoutException(String sourceAccountId, String targetAccountId) {
+        super("Transfer deadline exceeded: sourceAccountId = " + sourceAccountId
+                + ", targetAccountId = " + targetAccountId);
+    }
+}
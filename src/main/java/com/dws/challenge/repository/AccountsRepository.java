@@ -3,11 +3,20 @@ package com.dws.challenge.repository;
 import com.dws.challenge.domain.Account;
 import com.dws.challenge.exception.DuplicateAccountIdException;
 
+import java.util.Collection;
+
 public interface AccountsRepository {
 
   void createAccount(Account account) throws DuplicateAccountIdException;
 
   Account getAccount(String accountId);
 
+  Collection<Account> getAccounts();
+
+  /*
+   * Incremented by every clearAccounts, so observers can tell that the store was reset.
+   */
+  long getGeneration();
+
   void clearAccounts();
 }
@@ -4,14 +4,19 @@ import com.dws.challenge.domain.Account;
 import com.dws.challenge.exception.DuplicateAccountIdException;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Repository
 public class AccountsRepositoryInMemory implements AccountsRepository {
 
     private final Map<String, Account> accounts = new ConcurrentHashMap<>();
 
+    private final AtomicLong generation = new AtomicLong();
+
     @Override
     public void createAccount(Account account) throws DuplicateAccountIdException {
         Account previousAccount = accounts.putIfAbsent(account.getAccountId(), account);
@@ -26,8 +31,19 @@ public class AccountsRepositoryInMemory implements AccountsRepository {
         return accounts.get(accountId);
     }
 
+    @Override
+    public Collection<Account> getAccounts() {
+        return Collections.unmodifiableCollection(accounts.values());
+    }
+
+    @Override
+    public long getGeneration() {
+        return generation.get();
+    }
+
     @Override
     public void clearAccounts() {
+        generation.incrementAndGet();
         accounts.clear();
     }
 
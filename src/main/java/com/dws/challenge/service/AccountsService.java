@@ -4,41 +4,88 @@ import com.dws.challenge.domain.Account;
 import com.dws.challenge.exception.DuplicateAccountIdException;
 import com.dws.challenge.exception.NotEnoughFundsException;
 import com.dws.challenge.exception.AccountNotFoundException;
+import com.dws.challenge.exception.TransferTimeoutException;
 import com.dws.challenge.repository.AccountsRepository;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import lombok.Getter;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class AccountsService {
 
+    public static final String TRANSFER_TIMEOUTS_METER = "accounts.transfer.timeouts";
+
     @Getter
     private final AccountsRepository accountsRepository;
 
     private final NotificationService notificationService;
 
+    private final BalanceEventService balanceEventService;
+
+    private final MoneyAuditService moneyAuditService;
+
+    @Getter
+    private final Duration defaultTimeout;
+
+    private final Counter deadlineExpiredCounter;
+
+    private final Counter lockWaitTimeoutCounter;
+
+    private final Counter interruptedCounter;
+
     @Autowired
-    public AccountsService(AccountsRepository accountsRepository, NotificationService notificationService) {
+    public AccountsService(AccountsRepository accountsRepository, NotificationService notificationService,
+                           BalanceEventService balanceEventService, MoneyAuditService moneyAuditService,
+                           MeterRegistry meterRegistry,
+                           @Value("${accounts.transfer.default-timeout:5s}") Duration defaultTimeout) {
         this.accountsRepository = accountsRepository;
         this.notificationService = notificationService;
+        this.balanceEventService = balanceEventService;
+        this.moneyAuditService = moneyAuditService;
+        this.defaultTimeout = defaultTimeout;
+        this.deadlineExpiredCounter = meterRegistry.counter(TRANSFER_TIMEOUTS_METER, "reason", "deadline_expired");
+        this.lockWaitTimeoutCounter = meterRegistry.counter(TRANSFER_TIMEOUTS_METER, "reason", "lock_wait");
+        this.interruptedCounter = meterRegistry.counter(TRANSFER_TIMEOUTS_METER, "reason", "interrupted");
     }
 
+    /*
+     * The account stays locked until the auditor has recorded it, so no transfer can touch it before.
+     */
     public void createAccount(Account account) {
-        this.accountsRepository.createAccount(account);
+        account.lock();
+        try {
+            this.accountsRepository.createAccount(account);
+            this.moneyAuditService.recordCreated(account);
+        } finally {
+            account.unlock();
+        }
     }
 
     public Account getAccount(String accountId) {
         return this.accountsRepository.getAccount(accountId);
     }
 
+    public void transfer(String sourceAccountId, String targetAccountId, BigDecimal amount) {
+        transfer(sourceAccountId, targetAccountId, amount, defaultTimeout);
+    }
+
     /*
      * To avoid a deadlock we need always to acquire the account locks in the same order.
+     * The locks are acquired with the time left until the deadline, so a transfer fails fast
+     * instead of waiting behind a slow holder.
      */
-    public void transfer(String sourceAccountId, String targetAccountId, BigDecimal amount) {
+    public void transfer(String sourceAccountId, String targetAccountId, BigDecimal amount, Duration timeout) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+
         verifyAccountIds(sourceAccountId, targetAccountId);
 
         Account sourceAccount = getAccountById(sourceAccountId);
@@ -54,16 +101,45 @@ public class AccountsService {
             firstAccountLock = targetAccount;
             secondAccountLock = sourceAccount;
         }
-        
-        synchronized(firstAccountLock) {
-            synchronized (secondAccountLock) {
+
+        lock(firstAccountLock, deadline, sourceAccountId, targetAccountId);
+        try {
+            lock(secondAccountLock, deadline, sourceAccountId, targetAccountId);
+            try {
+                long auditEpoch = moneyAuditService.beginWrite(sourceAccount, targetAccount);
                 if (sourceAccount.withdraw(amount)) {
+                    moneyAuditService.recordWithdrawal(auditEpoch, amount);
                     targetAccount.deposit(amount);
+                    moneyAuditService.recordDeposit(auditEpoch, amount);
+                    balanceEventService.publish(sourceAccount);
+                    balanceEventService.publish(targetAccount);
                     sendTransferNotification(sourceAccount, targetAccount, amount);
                 } else {
                     throw new NotEnoughFundsException(sourceAccountId);
                 }
+            } finally {
+                secondAccountLock.unlock();
+            }
+        } finally {
+            firstAccountLock.unlock();
+        }
+    }
+
+    private void lock(Account account, long deadline, String sourceAccountId, String targetAccountId) {
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+            deadlineExpiredCounter.increment();
+            throw new TransferTimeoutException(sourceAccountId, targetAccountId);
+        }
+        try {
+            if (!account.tryLock(remaining, TimeUnit.NANOSECONDS)) {
+                lockWaitTimeoutCounter.increment();
+                throw new TransferTimeoutException(sourceAccountId, targetAccountId);
             }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            interruptedCounter.increment();
+            throw new TransferTimeoutException(sourceAccountId, targetAccountId);
         }
     }
 
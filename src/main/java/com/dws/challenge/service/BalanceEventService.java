@@ -0,0 +1,313 @@
+package com.dws.challenge.service;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.dto.BalanceEventDto;
+import com.dws.challenge.exception.AccountNotFoundException;
+import com.dws.challenge.repository.AccountsRepository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/*
+ * Streams balance changes to subscribers. The event id is "<incarnation>-<version>" of the account, so it doubles
+ * as a resume token: a reconnecting client gets the latest balance if it has changed since. A token of another
+ * incarnation of the account, or one which cannot be parsed, is ignored and the current balance is sent.
+ *
+ * Publishing never blocks the transfer: every subscriber holds only its latest undelivered event,
+ * a newer one replaces it, and a shared dispatcher pool does the actual writes.
+ *
+ * A servlet write to a client with a full TCP window blocks until the container's socket write timeout and cannot
+ * be cut short from here. A watchdog therefore sweeps the subscribers every sendTimeout / 2 and drops those whose
+ * write has been in progress for longer than sendTimeout. The thread stuck in such a write is written off: the pool
+ * gets an extra thread for it, so the other subscribers keep all dispatcherThreads. Up to maxStalledWrites stalled
+ * clients are absorbed that way, every further one holds one of the dispatcherThreads until its write fails.
+ * The stalled subscriber's emitter is completed once its write returns, and the extra thread is given back.
+ */
+@Service
+@Slf4j
+public class BalanceEventService {
+
+    public static final String BALANCE_EVENT_NAME = "balance";
+
+    private final AccountsRepository accountsRepository;
+
+    private final long emitterTimeoutMillis;
+
+    private final long sendTimeoutNanos;
+
+    private final int dispatcherThreads;
+
+    private final int maxStalledWrites;
+
+    private final ThreadPoolExecutor dispatcher;
+
+    // Guarded by this
+    private int stalledWrites;
+
+    private final ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "balance-events-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Map<String, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+
+    @Autowired
+    public BalanceEventService(AccountsRepository accountsRepository,
+                               @Value("${accounts.events.emitter-timeout:30m}") Duration emitterTimeout,
+                               @Value("${accounts.events.send-timeout:5s}") Duration sendTimeout,
+                               @Value("${accounts.events.dispatcher-threads:4}") int dispatcherThreads,
+                               @Value("${accounts.events.max-stalled-writes:64}") int maxStalledWrites) {
+        this.accountsRepository = accountsRepository;
+        this.emitterTimeoutMillis = emitterTimeout.toMillis();
+        this.sendTimeoutNanos = sendTimeout.toNanos();
+        this.dispatcherThreads = dispatcherThreads;
+        this.maxStalledWrites = maxStalledWrites;
+        this.dispatcher = new ThreadPoolExecutor(dispatcherThreads, dispatcherThreads + maxStalledWrites,
+                60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "balance-events");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PostConstruct
+    public void start() {
+        long sweepNanos = Math.max(sendTimeoutNanos / 2, TimeUnit.MILLISECONDS.toNanos(10));
+        watchdog.scheduleWithFixedDelay(this::sweepStalledWrites, sweepNanos, sweepNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        watchdog.shutdownNow();
+        dispatcher.shutdownNow();
+    }
+
+    /*
+     * The current balance is sent right away, unless the client has already seen it.
+     */
+    public SseEmitter subscribe(String accountId, String lastEventId) {
+        Account account = accountsRepository.getAccount(accountId);
+        if (account == null) {
+            throw new AccountNotFoundException(accountId);
+        }
+
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMillis);
+        Subscriber subscriber = new Subscriber(accountId, emitter, account.getIncarnation(),
+                lastSeenVersion(account, lastEventId));
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(() -> unsubscribe(subscriber));
+        emitter.onError(ex -> unsubscribe(subscriber));
+
+        // Added under the map lock, so an unsubscribe removing the last subscriber cannot drop the set in between
+        subscribers.compute(accountId, (id, accountSubscribers) -> {
+            if (accountSubscribers == null) {
+                accountSubscribers = new CopyOnWriteArraySet<>();
+            }
+            if (!subscriber.closed) {
+                accountSubscribers.add(subscriber);
+            }
+            return accountSubscribers.isEmpty() ? null : accountSubscribers;
+        });
+        subscriber.offer(snapshot(account));
+        return emitter;
+    }
+
+    /*
+     * Called by the transfer while it still holds the account lock, so events of an account are published in
+     * version order. It is a no-op for accounts nobody listens to.
+     */
+    public void publish(Account account) {
+        Set<Subscriber> accountSubscribers = subscribers.get(account.getAccountId());
+        if (accountSubscribers == null || accountSubscribers.isEmpty()) {
+            return;
+        }
+        BalanceEventDto event = snapshot(account);
+        for (Subscriber subscriber : accountSubscribers) {
+            subscriber.offer(event);
+        }
+    }
+
+    public int getSubscriberCount(String accountId) {
+        Set<Subscriber> accountSubscribers = subscribers.get(accountId);
+        return accountSubscribers == null ? 0 : accountSubscribers.size();
+    }
+
+    private static BalanceEventDto snapshot(Account account) {
+        synchronized (account) {
+            return new BalanceEventDto(account.getAccountId(), account.getBalance(), account.getVersion(),
+                    account.getIncarnation());
+        }
+    }
+
+    private static String eventId(BalanceEventDto event) {
+        return event.getIncarnation() + "-" + event.getVersion();
+    }
+
+    /*
+     * Returns -1, so the current balance is sent, unless the token belongs to the current incarnation of the account.
+     */
+    private static long lastSeenVersion(Account account, String lastEventId) {
+        if (lastEventId == null) {
+            return -1;
+        }
+        int separator = lastEventId.lastIndexOf('-');
+        if (separator <= 0 || !lastEventId.substring(0, separator).equals(account.getIncarnation())) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(lastEventId.substring(separator + 1));
+        } catch (NumberFormatException ex) {
+            return -1;
+        }
+    }
+
+    private void sweepStalledWrites() {
+        try {
+            long now = System.nanoTime();
+            for (Set<Subscriber> accountSubscribers : subscribers.values()) {
+                for (Subscriber subscriber : accountSubscribers) {
+                    if (subscriber.markStalled(now)) {
+                        log.debug("Dropping stalled balance event subscriber of account {}", subscriber.accountId);
+                        unsubscribe(subscriber);
+                        stalledWritesChanged(1);
+                    }
+                }
+            }
+        } catch (RuntimeException ex) {
+            log.error("Balance event watchdog failed", ex);
+        }
+    }
+
+    /*
+     * Every stalled write holds a dispatcher thread, so the pool grows by one thread for it, up to maxStalledWrites.
+     */
+    private synchronized void stalledWritesChanged(int delta) {
+        stalledWrites += delta;
+        // A dispatching thread may give its write back before the watchdog has counted it
+        dispatcher.setCorePoolSize(dispatcherThreads + Math.max(0, Math.min(stalledWrites, maxStalledWrites)));
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        subscriber.closed = true;
+        subscribers.computeIfPresent(subscriber.accountId, (id, accountSubscribers) -> {
+            accountSubscribers.remove(subscriber);
+            return accountSubscribers.isEmpty() ? null : accountSubscribers;
+        });
+    }
+
+    private final class Subscriber {
+
+        private static final long IDLE = Long.MIN_VALUE;
+
+        private static final long STALLED = Long.MIN_VALUE + 1;
+
+        private final String accountId;
+
+        private final SseEmitter emitter;
+
+        private final AtomicReference<BalanceEventDto> pending = new AtomicReference<>();
+
+        private final AtomicBoolean dispatching = new AtomicBoolean();
+
+        private volatile boolean closed;
+
+        // System.nanoTime() when the current write started, IDLE or STALLED otherwise
+        private final AtomicLong writeStarted = new AtomicLong(IDLE);
+
+        // Accessed only by the dispatching thread
+        private String lastSentIncarnation;
+
+        private long lastSentVersion;
+
+        private Subscriber(String accountId, SseEmitter emitter, String incarnation, long lastSentVersion) {
+            this.accountId = accountId;
+            this.emitter = emitter;
+            this.lastSentIncarnation = incarnation;
+            this.lastSentVersion = lastSentVersion;
+        }
+
+        void offer(BalanceEventDto event) {
+            pending.accumulateAndGet(event, (previous, latest) -> previous == null
+                    || !previous.getIncarnation().equals(latest.getIncarnation())
+                    || previous.getVersion() < latest.getVersion() ? latest : previous);
+            if (dispatching.compareAndSet(false, true)) {
+                dispatcher.execute(this::dispatch);
+            }
+        }
+
+        /*
+         * Claims a write in progress for longer than sendTimeout, so the dispatching thread learns about it
+         * when the write returns.
+         */
+        boolean markStalled(long now) {
+            long started = writeStarted.get();
+            return started != IDLE && started != STALLED && now - started > sendTimeoutNanos
+                    && writeStarted.compareAndSet(started, STALLED);
+        }
+
+        private void dispatch() {
+            try {
+                for (BalanceEventDto event = pending.getAndSet(null); event != null && !closed;
+                     event = pending.getAndSet(null)) {
+                    if (!event.getIncarnation().equals(lastSentIncarnation) || event.getVersion() > lastSentVersion) {
+                        long started = System.nanoTime();
+                        writeStarted.set(started);
+                        try {
+                            emitter.send(SseEmitter.event()
+                                    .id(eventId(event))
+                                    .name(BALANCE_EVENT_NAME)
+                                    .data(event, MediaType.APPLICATION_JSON));
+                        } finally {
+                            if (!writeStarted.compareAndSet(started, IDLE)) {
+                                // The watchdog has dropped this subscriber meanwhile
+                                stalledWritesChanged(-1);
+                            }
+                        }
+                        lastSentIncarnation = event.getIncarnation();
+                        lastSentVersion = event.getVersion();
+                    }
+                }
+            } catch (IOException | IllegalStateException ex) {
+                log.debug("Dropping balance event subscriber of account {}: {}", accountId, ex.getMessage());
+                unsubscribe(this);
+                emitter.completeWithError(ex);
+                return;
+            } finally {
+                dispatching.set(false);
+            }
+            if (closed) {
+                // Completing it from the watchdog would block on the emitter lock held by the write
+                if (writeStarted.get() == STALLED) {
+                    emitter.completeWithError(new IOException("Balance event write timed out"));
+                }
+                return;
+            }
+            // An event offered after the last poll but before the flag was cleared
+            if (pending.get() != null && dispatching.compareAndSet(false, true)) {
+                dispatcher.execute(this::dispatch);
+            }
+        }
+    }
+}
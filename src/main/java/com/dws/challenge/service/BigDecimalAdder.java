@@ -0,0 +1,49 @@
+package com.dws.challenge.service;
+
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/*
+ * Striped BigDecimal sum in the spirit of LongAdder: every thread adds to its own cell,
+ * so concurrent writers rarely contend on the same compare-and-set.
+ */
+class BigDecimalAdder {
+
+    private final AtomicReferenceArray<BigDecimal> cells;
+
+    private final int mask;
+
+    BigDecimalAdder() {
+        int stripes = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() * 2 - 1)) << 1;
+        this.cells = new AtomicReferenceArray<>(stripes);
+        this.mask = stripes - 1;
+        reset();
+    }
+
+    void add(BigDecimal amount) {
+        int index = index();
+        BigDecimal current;
+        do {
+            current = cells.get(index);
+        } while (!cells.compareAndSet(index, current, current.add(amount)));
+    }
+
+    BigDecimal sum() {
+        BigDecimal sum = BigDecimal.ZERO;
+        for (int i = 0; i < cells.length(); i++) {
+            sum = sum.add(cells.get(i));
+        }
+        return sum;
+    }
+
+    void reset() {
+        for (int i = 0; i < cells.length(); i++) {
+            cells.set(i, BigDecimal.ZERO);
+        }
+    }
+
+    private int index() {
+        long threadId = Thread.currentThread().getId();
+        return (int) ((threadId * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+    }
+}
@@ -0,0 +1,205 @@
+package com.dws.challenge.service;
+
+import java.util.function.Consumer;
+
+/*
+ * Hierarchical timing wheel: every level has 2^wheelBits slots and every slot of a level spans a whole
+ * rotation of the level below. An entry lives in the lowest level where its deadline tick and the current
+ * tick differ, so scheduling and cancelling are O(1) and entries move down a level only when the level
+ * below wraps around. Deadlines beyond the top level wait in an overflow list until the top level wraps.
+ *
+ * Deadlines are rounded up to the tick, so an entry never fires before its deadline.
+ */
+public class HierarchicalTimingWheel<T> {
+
+    private final long tickMillis;
+
+    private final int wheelBits;
+
+    private final int mask;
+
+    private final Slot<T>[][] levels;
+
+    private final Slot<T> overflow = new Slot<>();
+
+    private long currentTick;
+
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    public HierarchicalTimingWheel(long tickMillis, int wheelBits, int levelCount, long startMillis) {
+        if (tickMillis <= 0 || wheelBits <= 0 || levelCount <= 0 || (long) wheelBits * levelCount >= Long.SIZE - 1) {
+            throw new IllegalArgumentException("Invalid timing wheel dimensions");
+        }
+        this.tickMillis = tickMillis;
+        this.wheelBits = wheelBits;
+        this.mask = (1 << wheelBits) - 1;
+        this.levels = new Slot[levelCount][1 << wheelBits];
+        for (Slot<T>[] level : levels) {
+            for (int i = 0; i < level.length; i++) {
+                level[i] = new Slot<>();
+            }
+        }
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    /*
+     * A deadline which has already passed fires on the next tick.
+     */
+    public synchronized Entry<T> schedule(T task, long deadlineMillis) {
+        long deadlineTick = Math.max(ceilDiv(deadlineMillis, tickMillis), currentTick + 1);
+        Entry<T> entry = new Entry<>(task, deadlineMillis, deadlineTick);
+        place(entry);
+        size++;
+        return entry;
+    }
+
+    public synchronized boolean cancel(Entry<T> entry) {
+        if (entry.slot == null) {
+            return false;
+        }
+        entry.slot.remove(entry);
+        size--;
+        return true;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /*
+     * Moves the wheel up to the given time, handing every entry whose deadline has passed to the consumer.
+     * The consumer is called under the wheel lock, so it should only hand the task over.
+     */
+    public synchronized void advance(long nowMillis, Consumer<T> expired) {
+        long targetTick = nowMillis / tickMillis;
+        while (currentTick < targetTick) {
+            currentTick++;
+            cascade();
+            Slot<T> due = levels[0][(int) (currentTick & mask)];
+            for (Entry<T> entry = due.poll(); entry != null; entry = due.poll()) {
+                size--;
+                expired.accept(entry.task);
+            }
+        }
+    }
+
+    /*
+     * When a level wraps around, the current slot of the level above is redistributed to the lower levels.
+     * The highest wrapped level goes first, so its entries can land in slots which are cascaded right after.
+     */
+    private void cascade() {
+        int wrapped = 0;
+        while (wrapped < levels.length && ((currentTick >>> (wheelBits * wrapped)) & mask) == 0) {
+            wrapped++;
+        }
+        if (wrapped == levels.length) {
+            redistribute(overflow);
+            wrapped--;
+        }
+        for (int level = wrapped; level > 0; level--) {
+            redistribute(levels[level][(int) ((currentTick >>> (wheelBits * level)) & mask)]);
+        }
+    }
+
+    /*
+     * The slot is detached first, since overflow entries which are still out of range go back to it.
+     */
+    private void redistribute(Slot<T> slot) {
+        Entry<T> entry = slot.head;
+        slot.head = null;
+        while (entry != null) {
+            Entry<T> next = entry.next;
+            entry.slot = null;
+            entry.prev = null;
+            entry.next = null;
+            place(entry);
+            entry = next;
+        }
+    }
+
+    private void place(Entry<T> entry) {
+        long deadlineTick = entry.deadlineTick;
+        for (int level = 0; level < levels.length; level++) {
+            int shift = wheelBits * (level + 1);
+            if ((deadlineTick >>> shift) == (currentTick >>> shift)) {
+                levels[level][(int) ((deadlineTick >>> (wheelBits * level)) & mask)].add(entry);
+                return;
+            }
+        }
+        overflow.add(entry);
+    }
+
+    private static long ceilDiv(long dividend, long divisor) {
+        return -Math.floorDiv(-dividend, divisor);
+    }
+
+    public static final class Entry<T> {
+
+        private final T task;
+
+        private final long deadlineMillis;
+
+        private final long deadlineTick;
+
+        private Slot<T> slot;
+
+        private Entry<T> prev;
+
+        private Entry<T> next;
+
+        private Entry(T task, long deadlineMillis, long deadlineTick) {
+            this.task = task;
+            this.deadlineMillis = deadlineMillis;
+            this.deadlineTick = deadlineTick;
+        }
+
+        public T getTask() {
+            return task;
+        }
+
+        public long getDeadlineMillis() {
+            return deadlineMillis;
+        }
+    }
+
+    /*
+     * Intrusive doubly linked list, so an entry is unlinked in O(1) on cancel.
+     */
+    private static final class Slot<T> {
+
+        private Entry<T> head;
+
+        void add(Entry<T> entry) {
+            entry.slot = this;
+            entry.prev = null;
+            entry.next = head;
+            if (head != null) {
+                head.prev = entry;
+            }
+            head = entry;
+        }
+
+        void remove(Entry<T> entry) {
+            if (entry.prev != null) {
+                entry.prev.next = entry.next;
+            } else {
+                head = entry.next;
+            }
+            if (entry.next != null) {
+                entry.next.prev = entry.prev;
+            }
+            entry.slot = null;
+            entry.prev = null;
+            entry.next = null;
+        }
+
+        Entry<T> poll() {
+            Entry<T> entry = head;
+            if (entry != null) {
+                remove(entry);
+            }
+            return entry;
+        }
+    }
+}
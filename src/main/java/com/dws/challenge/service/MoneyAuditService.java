@@ -0,0 +1,366 @@
+package com.dws.challenge.service;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.AccountAuditState;
+import com.dws.challenge.repository.AccountsRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/*
+ * Verifies that transfers never create or destroy money, without stopping the writers.
+ *
+ * Every audit starts a new epoch, a cut in time. Writers read the epoch under the account locks, save the balance
+ * of an account at the cut before its first change after it, and add their amounts to the striped counters
+ * of the epoch they have read. The auditor then visits the accounts one by one, so the sum of the balances
+ * at the cut is consistent, and compares its change since the previous cut with the counters of the epoch
+ * which has just ended. The deposits of the epoch must also be equal to its withdrawals.
+ *
+ * An account the auditor has not recorded, because it entered the repository without going through
+ * AccountsService.createAccount, is a discrepancy too. It is adopted at the cut it is found at,
+ * so it is audited like any other account from then on.
+ *
+ * A discrepancy raises the alert gauge, which stays raised until an operator acknowledges it, since the next
+ * audit is usually balanced again. The time of the last discrepancy is exposed as a gauge too.
+ */
+@Service
+@Slf4j
+public class MoneyAuditService {
+
+    public static final String DISCREPANCIES_METER = "accounts.audit.discrepancies";
+
+    public static final String ALERT_METER = "accounts.audit.alert";
+
+    public static final String LAST_DISCREPANCY_METER = "accounts.audit.last-discrepancy";
+
+    private static final String DUMP_PREFIX = "money-audit-";
+
+    private static final String DUMP_SUFFIX = ".txt";
+
+    private final AccountsRepository accountsRepository;
+
+    private final boolean enabled;
+
+    private final Duration interval;
+
+    private final Path dumpDirectory;
+
+    private final int dumpMaxAccounts;
+
+    private final int dumpMaxFiles;
+
+    private final Counter discrepanciesCounter;
+
+    private final AtomicInteger alert = new AtomicInteger();
+
+    // Epoch seconds, 0 until the first discrepancy
+    private final AtomicLong lastDiscrepancy = new AtomicLong();
+
+    private final EpochCounters[] epochCounters = {new EpochCounters(), new EpochCounters()};
+
+    private volatile long epoch;
+
+    // Accessed only by the auditing thread
+    private BigDecimal previousTotal;
+
+    private long previousGeneration = -1;
+
+    @Getter
+    private volatile AuditResult lastResult;
+
+    private final ScheduledExecutorService auditor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "money-auditor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    public MoneyAuditService(AccountsRepository accountsRepository, MeterRegistry meterRegistry,
+                             @Value("${accounts.audit.enabled:true}") boolean enabled,
+                             @Value("${accounts.audit.interval:10s}") Duration interval,
+                             @Value("${accounts.audit.dump-directory:money-audit-dumps}") String dumpDirectory,
+                             @Value("${accounts.audit.dump-max-accounts:1000}") int dumpMaxAccounts,
+                             @Value("${accounts.audit.dump-max-files:10}") int dumpMaxFiles) {
+        this.accountsRepository = accountsRepository;
+        this.enabled = enabled;
+        this.interval = interval;
+        this.dumpDirectory = Paths.get(dumpDirectory);
+        this.dumpMaxAccounts = dumpMaxAccounts;
+        this.dumpMaxFiles = dumpMaxFiles;
+        this.discrepanciesCounter = meterRegistry.counter(DISCREPANCIES_METER);
+        meterRegistry.gauge(ALERT_METER, alert);
+        meterRegistry.gauge(LAST_DISCREPANCY_METER, lastDiscrepancy);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (enabled) {
+            auditor.scheduleWithFixedDelay(this::auditSafely, interval.toMillis(), interval.toMillis(),
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        auditor.shutdownNow();
+    }
+
+    /*
+     * Called with the account lock held, after the account is added to the repository.
+     */
+    public void recordCreated(Account account) {
+        if (!enabled) {
+            return;
+        }
+        long currentEpoch = epoch;
+        AccountAuditState state = account.getAuditState();
+        state.setCreatedEpoch(currentEpoch);
+        state.setSnapshotEpoch(currentEpoch);
+        state.setSnapshotBalance(account.getBalance());
+        counters(currentEpoch).created.add(account.getBalance());
+    }
+
+    /*
+     * Called with the locks of all the given accounts held, before any of them is changed.
+     * Returns the epoch the following changes belong to.
+     */
+    public long beginWrite(Account... accounts) {
+        if (!enabled) {
+            return -1;
+        }
+        long currentEpoch = epoch;
+        for (Account account : accounts) {
+            AccountAuditState state = account.getAuditState();
+            if (state.getSnapshotEpoch() < currentEpoch) {
+                state.setSnapshotEpoch(currentEpoch);
+                state.setSnapshotBalance(account.getBalance());
+            }
+        }
+        return currentEpoch;
+    }
+
+    public void recordWithdrawal(long writeEpoch, BigDecimal amount) {
+        if (enabled) {
+            counters(writeEpoch).withdrawals.add(amount);
+        }
+    }
+
+    public void recordDeposit(long writeEpoch, BigDecimal amount) {
+        if (enabled) {
+            counters(writeEpoch).deposits.add(amount);
+        }
+    }
+
+    /*
+     * Runs a single audit. Only one audit may run at a time, the scheduled one runs on the auditor thread.
+     */
+    public synchronized AuditResult audit() {
+        long generation = accountsRepository.getGeneration();
+        long cut = epoch + 1;
+        epoch = cut;
+
+        BigDecimal total = BigDecimal.ZERO;
+        BigDecimal adopted = BigDecimal.ZERO;
+        int accountCount = 0;
+        int unregistered = 0;
+        for (Account account : accountsRepository.getAccounts()) {
+            account.lock();
+            try {
+                AccountAuditState state = account.getAuditState();
+                boolean adopting = state.getCreatedEpoch() == AccountAuditState.UNREGISTERED;
+                if (adopting) {
+                    state.setCreatedEpoch(cut - 1);
+                    unregistered++;
+                }
+                if (state.getCreatedEpoch() >= cut) {
+                    continue;
+                }
+                if (state.getSnapshotEpoch() < cut) {
+                    state.setSnapshotEpoch(cut);
+                    state.setSnapshotBalance(account.getBalance());
+                }
+                total = total.add(state.getSnapshotBalance());
+                if (adopting) {
+                    adopted = adopted.add(state.getSnapshotBalance());
+                }
+                accountCount++;
+            } finally {
+                account.unlock();
+            }
+        }
+
+        // Every writer of the previous epoch held a lock visited above, so its counters are final now
+        EpochCounters counters = counters(cut - 1);
+        BigDecimal created = counters.created.sum();
+        BigDecimal deposits = counters.deposits.sum();
+        BigDecimal withdrawals = counters.withdrawals.sum();
+        counters.reset();
+
+        boolean rebased = previousTotal == null || generation != previousGeneration
+                || generation != accountsRepository.getGeneration();
+        BigDecimal expected = rebased ? total
+                : previousTotal.add(created).add(adopted).add(deposits).subtract(withdrawals);
+        AuditResult result = new AuditResult(cut, accountCount, total, expected, created, deposits, withdrawals,
+                unregistered, rebased);
+
+        previousTotal = total;
+        previousGeneration = accountsRepository.getGeneration();
+        lastResult = result;
+
+        if (!result.isBalanced()) {
+            alert.set(1);
+            lastDiscrepancy.set(Instant.now().getEpochSecond());
+            discrepanciesCounter.increment();
+            log.error("Money audit discrepancy: {}", result);
+            dump(result);
+        }
+        return result;
+    }
+
+    public boolean isAlertRaised() {
+        return alert.get() != 0;
+    }
+
+    public void acknowledgeAlert() {
+        if (alert.getAndSet(0) != 0) {
+            log.info("Money audit alert acknowledged");
+        }
+    }
+
+    private void auditSafely() {
+        try {
+            audit();
+        } catch (RuntimeException ex) {
+            log.error("Money audit failed", ex);
+        }
+    }
+
+    private EpochCounters counters(long writeEpoch) {
+        return epochCounters[(int) (writeEpoch & 1)];
+    }
+
+    /*
+     * Balances are read without the cut here, the dump is meant for diagnostics only.
+     * At most dumpMaxFiles dumps are kept in the dump directory, which belongs to the application,
+     * the oldest ones are deleted first.
+     */
+    private void dump(AuditResult result) {
+        if (dumpMaxFiles <= 0) {
+            return;
+        }
+        try {
+            Files.createDirectories(dumpDirectory);
+        } catch (IOException ex) {
+            log.error("Could not create money audit dump directory {}", dumpDirectory, ex);
+            return;
+        }
+        deleteOldDumps(dumpMaxFiles - 1);
+        Path file = dumpDirectory.resolve(DUMP_PREFIX + result.getEpoch() + "-" + System.currentTimeMillis() + DUMP_SUFFIX);
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(file))) {
+            writer.println("time=" + Instant.now());
+            writer.println(result);
+            int dumped = 0;
+            for (Account account : accountsRepository.getAccounts()) {
+                if (dumped++ == dumpMaxAccounts) {
+                    writer.println("...");
+                    break;
+                }
+                writer.println(account.getAccountId() + " balance=" + account.getBalance()
+                        + " version=" + account.getVersion());
+            }
+            log.error("Money audit dump written to {}", file);
+        } catch (IOException ex) {
+            log.error("Could not write money audit dump to {}", file, ex);
+        }
+    }
+
+    private void deleteOldDumps(int keep) {
+        List<Path> dumps;
+        try (Stream<Path> files = Files.list(dumpDirectory)) {
+            dumps = files.filter(Files::isRegularFile)
+                    .filter(file -> file.getFileName().toString().startsWith(DUMP_PREFIX)
+                            && file.getFileName().toString().endsWith(DUMP_SUFFIX))
+                    .sorted(Comparator.comparingLong((Path file) -> file.toFile().lastModified())
+                            .thenComparing(Path::getFileName)
+                            .reversed())
+                    .collect(Collectors.toList());
+        } catch (IOException ex) {
+            log.error("Could not list money audit dumps in {}", dumpDirectory, ex);
+            return;
+        }
+        for (Path stale : dumps.subList(Math.min(keep, dumps.size()), dumps.size())) {
+            try {
+                Files.deleteIfExists(stale);
+            } catch (IOException ex) {
+                log.error("Could not delete money audit dump {}", stale, ex);
+            }
+        }
+    }
+
+    private static final class EpochCounters {
+
+        private final BigDecimalAdder created = new BigDecimalAdder();
+
+        private final BigDecimalAdder deposits = new BigDecimalAdder();
+
+        private final BigDecimalAdder withdrawals = new BigDecimalAdder();
+
+        void reset() {
+            created.reset();
+            deposits.reset();
+            withdrawals.reset();
+        }
+    }
+
+    @lombok.Value
+    public static class AuditResult {
+
+        long epoch;
+
+        int accountCount;
+
+        BigDecimal total;
+
+        BigDecimal expected;
+
+        BigDecimal created;
+
+        BigDecimal deposits;
+
+        BigDecimal withdrawals;
+
+        // Accounts found without having been recorded by the auditor
+        int unregistered;
+
+        boolean rebased;
+
+        public boolean isBalanced() {
+            return unregistered == 0 && total.compareTo(expected) == 0 && deposits.compareTo(withdrawals) == 0;
+        }
+    }
+}
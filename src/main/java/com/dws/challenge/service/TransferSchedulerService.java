@@ -0,0 +1,221 @@
+package com.dws.challenge.service;
+
+import com.dws.challenge.domain.ScheduledTransfer;
+import com.dws.challenge.dto.TransferScheduleDto;
+import com.dws.challenge.exception.AccountException;
+import com.dws.challenge.exception.AccountNotFoundException;
+import com.dws.challenge.exception.DuplicateAccountIdException;
+import com.dws.challenge.exception.ScheduleNotFoundException;
+import com.dws.challenge.service.HierarchicalTimingWheel.Entry;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Runs future-dated and recurring transfers. Pending schedules wait in a hierarchical timing wheel,
+ * due ones are queued and handed to a bounded worker pool at most maxTransfersPerTick per tick,
+ * so a burst of schedules due at the same time is spread over the following ticks.
+ * The ticker thread itself never runs a transfer, and a transfer gives up after transferTimeout.
+ *
+ * Misfire policy: a recurring transfer runs at most once per due time it actually reaches,
+ * occurrences missed because of a backlog or a pause are skipped.
+ */
+@Service
+@Slf4j
+public class TransferSchedulerService {
+
+    private static final int WHEEL_BITS = 8;
+
+    private static final int WHEEL_LEVELS = 4;
+
+    private final AccountsService accountsService;
+
+    private final long tickMillis;
+
+    private final int maxTransfersPerTick;
+
+    private final Duration transferTimeout;
+
+    private final HierarchicalTimingWheel<ScheduledTransfer> timingWheel;
+
+    private final Map<String, Entry<ScheduledTransfer>> timerEntries = new ConcurrentHashMap<>();
+
+    private final Map<String, Map<String, ScheduledTransfer>> schedulesByAccount = new ConcurrentHashMap<>();
+
+    // Accessed only from the ticker thread
+    private final Deque<ScheduledTransfer> dueTransfers = new ArrayDeque<>();
+
+    private final ThreadPoolExecutor workers;
+
+    private final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "transfer-scheduler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    public TransferSchedulerService(AccountsService accountsService,
+                                    @Value("${accounts.scheduler.tick-millis:100}") long tickMillis,
+                                    @Value("${accounts.scheduler.max-transfers-per-tick:1000}") int maxTransfersPerTick,
+                                    @Value("${accounts.scheduler.worker-threads:4}") int workerThreads,
+                                    @Value("${accounts.scheduler.transfer-timeout:200ms}") Duration transferTimeout) {
+        this.accountsService = accountsService;
+        this.tickMillis = tickMillis;
+        this.maxTransfersPerTick = maxTransfersPerTick;
+        this.transferTimeout = transferTimeout;
+        this.workers = new ThreadPoolExecutor(workerThreads, workerThreads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(maxTransfersPerTick), runnable -> {
+                    Thread thread = new Thread(runnable, "transfer-scheduler-worker");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.timingWheel = new HierarchicalTimingWheel<>(tickMillis, WHEEL_BITS, WHEEL_LEVELS, System.currentTimeMillis());
+    }
+
+    @PostConstruct
+    public void start() {
+        ticker.scheduleWithFixedDelay(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        ticker.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    public ScheduledTransfer createSchedule(String sourceAccountId, TransferScheduleDto request) {
+        verifyAccounts(sourceAccountId, request.getTargetAccountId());
+
+        ScheduledTransfer schedule = new ScheduledTransfer(UUID.randomUUID().toString(), sourceAccountId,
+                request.getTargetAccountId(), request.getAmount(), request.getInterval());
+        schedule.setNextExecutionTime(request.getExecuteAt());
+
+        schedulesByAccount.computeIfAbsent(sourceAccountId, id -> new ConcurrentHashMap<>())
+                .put(schedule.getScheduleId(), schedule);
+        arm(schedule);
+        return schedule;
+    }
+
+    public Collection<ScheduledTransfer> getSchedules(String sourceAccountId) {
+        Map<String, ScheduledTransfer> schedules = schedulesByAccount.get(sourceAccountId);
+        return schedules == null ? Collections.emptyList() : schedules.values();
+    }
+
+    public void cancelSchedule(String sourceAccountId, String scheduleId) {
+        Map<String, ScheduledTransfer> schedules = schedulesByAccount.get(sourceAccountId);
+        ScheduledTransfer schedule = schedules == null ? null : schedules.remove(scheduleId);
+        if (schedule == null) {
+            throw new ScheduleNotFoundException(scheduleId);
+        }
+        schedule.cancel();
+        Entry<ScheduledTransfer> timerEntry = timerEntries.remove(scheduleId);
+        if (timerEntry != null) {
+            timingWheel.cancel(timerEntry);
+        }
+    }
+
+    public int getPendingCount() {
+        return timingWheel.size();
+    }
+
+    private void arm(ScheduledTransfer schedule) {
+        Entry<ScheduledTransfer> timerEntry =
+                timingWheel.schedule(schedule, schedule.getNextExecutionTime().toEpochMilli());
+        timerEntries.put(schedule.getScheduleId(), timerEntry);
+        // A cancel racing with arming may have missed the new entry
+        if (schedule.isCancelled() && timerEntries.remove(schedule.getScheduleId(), timerEntry)) {
+            timingWheel.cancel(timerEntry);
+        }
+    }
+
+    /*
+     * When the workers are saturated the rest of the due transfers waits for the next tick.
+     */
+    private void tick() {
+        try {
+            timingWheel.advance(System.currentTimeMillis(), dueTransfers::add);
+            for (int i = 0; i < maxTransfersPerTick && !dueTransfers.isEmpty(); i++) {
+                ScheduledTransfer schedule = dueTransfers.poll();
+                try {
+                    workers.execute(() -> execute(schedule));
+                } catch (RejectedExecutionException ex) {
+                    dueTransfers.addFirst(schedule);
+                    break;
+                }
+            }
+        } catch (RuntimeException ex) {
+            log.error("Transfer scheduler tick failed", ex);
+        }
+    }
+
+    private void execute(ScheduledTransfer schedule) {
+        if (schedule.isCancelled()) {
+            return;
+        }
+        try {
+            accountsService.transfer(schedule.getSourceAccountId(), schedule.getTargetAccountId(), schedule.getAmount(),
+                    transferTimeout);
+        } catch (AccountException ex) {
+            log.warn("Scheduled transfer {} failed: {}", schedule.getScheduleId(), ex.getMessage());
+        } catch (RuntimeException ex) {
+            log.error("Scheduled transfer {} failed", schedule.getScheduleId(), ex);
+        }
+
+        if (schedule.isRecurring()) {
+            schedule.setNextExecutionTime(nextExecutionTime(schedule, Instant.now()));
+            arm(schedule);
+        } else {
+            timerEntries.remove(schedule.getScheduleId());
+            Map<String, ScheduledTransfer> schedules = schedulesByAccount.get(schedule.getSourceAccountId());
+            if (schedules != null) {
+                schedules.remove(schedule.getScheduleId(), schedule);
+            }
+        }
+    }
+
+    /*
+     * The first occurrence after now, missed occurrences are skipped.
+     */
+    private static Instant nextExecutionTime(ScheduledTransfer schedule, Instant now) {
+        Instant next = schedule.getNextExecutionTime().plus(schedule.getInterval());
+        if (next.isAfter(now)) {
+            return next;
+        }
+        long missed = Duration.between(next, now).dividedBy(schedule.getInterval()) + 1;
+        return next.plus(schedule.getInterval().multipliedBy(missed));
+    }
+
+    private void verifyAccounts(String sourceAccountId, String targetAccountId) {
+        if (sourceAccountId.equals(targetAccountId)) {
+            throw new DuplicateAccountIdException(
+                    String.format("Accounts for money transfer must be different: " +
+                            "sourceAccountId = %s, targetAccountId = %s", sourceAccountId, targetAccountId)
+            );
+        }
+        for (String accountId : new String[] {sourceAccountId, targetAccountId}) {
+            if (accountsService.getAccount(accountId) == null) {
+                throw new AccountNotFoundException(accountId);
+            }
+        }
+    }
+}
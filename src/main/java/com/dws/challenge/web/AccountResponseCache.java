@@ -0,0 +1,158 @@
+package com.dws.challenge.web;
+
+import com.dws.challenge.domain.Account;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.stereotype.Component;
+
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Keeps the latest serialized representation of the most recently requested accounts per wire format,
+ * so an unchanged account is served without going through Jackson again. The cache is bounded to maxSize
+ * entries by Caffeine, which evicts in the background, so a lookup never takes a global lock.
+ * An entry is valid only for the same account instance and the same version.
+ */
+@Component
+public class AccountResponseCache {
+
+    private final Map<MediaType, ObjectMapper> objectMappers = new LinkedHashMap<>();
+
+    private final Cache<String, CachedAccountResponse> responses;
+
+    @Autowired
+    public AccountResponseCache(List<AbstractJackson2HttpMessageConverter> converters,
+                                @Value("${accounts.response-cache.max-size:10000}") int maxSize) {
+        // JSON goes first, so it is the default format
+        converters.stream()
+                .filter(converter -> converter instanceof MappingJackson2HttpMessageConverter)
+                .forEach(this::register);
+        converters.forEach(this::register);
+        this.responses = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .build();
+    }
+
+    /*
+     * Picks the first supported format acceptable for the client, JSON if there is none.
+     */
+    public MediaType negotiate(String accept) {
+        MediaType json = MediaType.APPLICATION_JSON;
+        if (accept == null) {
+            return json;
+        }
+
+        List<MediaType> acceptedTypes;
+        try {
+            acceptedTypes = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException ex) {
+            return json;
+        }
+        MediaType.sortBySpecificityAndQuality(acceptedTypes);
+
+        for (MediaType acceptedType : acceptedTypes) {
+            for (MediaType supportedType : objectMappers.keySet()) {
+                if (acceptedType.includes(supportedType)) {
+                    return supportedType;
+                }
+            }
+        }
+        return json;
+    }
+
+    public CachedAccountResponse get(Account account, MediaType mediaType) {
+        String key = mediaType.getSubtype() + ":" + account.getAccountId();
+        CachedAccountResponse cached = responses.getIfPresent(key);
+        if (cached != null && cached.isFor(account, account.getVersion())) {
+            return cached;
+        }
+
+        CachedAccountResponse response = serialize(account, mediaType);
+        responses.asMap().merge(key, response, AccountResponseCache::newer);
+        return response;
+    }
+
+    /*
+     * Runs the pending evictions first, so the size is exact for tests and diagnostics.
+     */
+    public long size() {
+        responses.cleanUp();
+        return responses.estimatedSize();
+    }
+
+    /*
+     * A strong ETag has to be unique per representation, so the format is a part of it.
+     */
+    public static String eTag(String incarnation, long version, MediaType mediaType) {
+        return "\"" + incarnation + "-" + version + "-" + mediaType.getSubtype() + "\"";
+    }
+
+    private void register(AbstractJackson2HttpMessageConverter converter) {
+        for (MediaType mediaType : converter.getSupportedMediaTypes()) {
+            if (!mediaType.isWildcardSubtype() && !mediaType.isWildcardType()) {
+                objectMappers.putIfAbsent(mediaType, converter.getObjectMapper());
+            }
+        }
+    }
+
+    /*
+     * The account lock is held while serializing, so the version and the body always match.
+     */
+    private CachedAccountResponse serialize(Account account, MediaType mediaType) {
+        ObjectMapper objectMapper = objectMappers.getOrDefault(mediaType, objectMappers.get(MediaType.APPLICATION_JSON));
+        synchronized (account) {
+            try {
+                return new CachedAccountResponse(account, account.getVersion(), mediaType,
+                        objectMapper.writeValueAsBytes(account));
+            } catch (JsonProcessingException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+    }
+
+    private static CachedAccountResponse newer(CachedAccountResponse previous, CachedAccountResponse response) {
+        if (previous.account == response.account && previous.version > response.version) {
+            return previous;
+        }
+        return response;
+    }
+
+    @Getter
+    public static class CachedAccountResponse {
+
+        private final Account account;
+
+        private final long version;
+
+        private final MediaType mediaType;
+
+        private final byte[] body;
+
+        CachedAccountResponse(Account account, long version, MediaType mediaType, byte[] body) {
+            this.account = account;
+            this.version = version;
+            this.mediaType = mediaType;
+            this.body = body;
+        }
+
+        public String getETag() {
+            return eTag(account.getIncarnation(), version, mediaType);
+        }
+
+        boolean isFor(Account account, long version) {
+            return this.account == account && this.version == version;
+        }
+    }
+}
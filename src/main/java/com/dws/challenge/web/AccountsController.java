@@ -1,12 +1,20 @@
 package com.dws.challenge.web;
 
+import static com.dws.challenge.config.WireFormatConfig.APPLICATION_SMILE_VALUE;
+
 import com.dws.challenge.domain.Account;
 import com.dws.challenge.dto.AccountTransferMoneyDto;
 import com.dws.challenge.exception.AccountException;
+import com.dws.challenge.exception.AccountNotFoundException;
 import com.dws.challenge.exception.DuplicateAccountIdException;
+import com.dws.challenge.exception.TransferTimeoutException;
 import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.service.BalanceEventService;
+import com.dws.challenge.web.AccountResponseCache.CachedAccountResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -14,24 +22,45 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import javax.validation.Valid;
+import java.time.Duration;
 
 @RestController
 @RequestMapping("/v1/accounts")
 @Slf4j
 public class AccountsController {
 
+    /*
+     * Time in milliseconds the caller is willing to wait for a transfer, capped at accounts.transfer.max-timeout.
+     */
+    public static final String REQUEST_TIMEOUT_HEADER = "Request-Timeout";
+
+    public static final String LAST_EVENT_ID_HEADER = "Last-Event-ID";
+
     private final AccountsService accountsService;
 
+    private final AccountResponseCache accountResponseCache;
+
+    private final BalanceEventService balanceEventService;
+
+    private final Duration maxRequestTimeout;
+
     @Autowired
-    public AccountsController(AccountsService accountsService) {
+    public AccountsController(AccountsService accountsService, AccountResponseCache accountResponseCache,
+                              BalanceEventService balanceEventService,
+                              @Value("${accounts.transfer.max-timeout:30s}") Duration maxRequestTimeout) {
         this.accountsService = accountsService;
+        this.accountResponseCache = accountResponseCache;
+        this.balanceEventService = balanceEventService;
+        this.maxRequestTimeout = maxRequestTimeout;
     }
 
-    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+    @PostMapping(consumes = {MediaType.APPLICATION_JSON_VALUE, APPLICATION_SMILE_VALUE, MediaType.APPLICATION_CBOR_VALUE})
     public ResponseEntity<Object> createAccount(@RequestBody @Valid Account account) {
         log.info("Creating account {}", account);
 
@@ -45,17 +74,60 @@ public class AccountsController {
     }
 
     @GetMapping(path = "/{accountId}")
-    public Account getAccount(@PathVariable String accountId) {
-        log.info("Retrieving account for id {}", accountId);
-        return this.accountsService.getAccount(accountId);
+    public ResponseEntity<byte[]> getAccount(@PathVariable String accountId,
+                                             @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+                                             String ifNoneMatch,
+                                             @RequestHeader(value = HttpHeaders.ACCEPT, required = false)
+                                             String accept) {
+        log.debug("Retrieving account for id {}", accountId);
+        Account account = this.accountsService.getAccount(accountId);
+        if (account == null) {
+            return ResponseEntity.ok().build();
+        }
+
+        MediaType mediaType = this.accountResponseCache.negotiate(accept);
+        String eTag = AccountResponseCache.eTag(account.getIncarnation(), account.getVersion(), mediaType);
+        if (matches(ifNoneMatch, eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).varyBy(HttpHeaders.ACCEPT).build();
+        }
+
+        CachedAccountResponse response = this.accountResponseCache.get(account, mediaType);
+        return ResponseEntity.ok()
+                .eTag(response.getETag())
+                .varyBy(HttpHeaders.ACCEPT)
+                .contentType(response.getMediaType())
+                .body(response.getBody());
     }
 
-    @PostMapping(value = "/{accountId}/transfer", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @GetMapping(path = "/{accountId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamBalanceEvents(@PathVariable String accountId,
+                                                          @RequestHeader(value = LAST_EVENT_ID_HEADER, required = false)
+                                                          String lastEventId) {
+        log.debug("Streaming balance events for id {} from {}", accountId, lastEventId);
+        try {
+            return ResponseEntity.ok(balanceEventService.subscribe(accountId, lastEventId));
+        } catch (AccountNotFoundException ex) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @PostMapping(value = "/{accountId}/transfer",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, APPLICATION_SMILE_VALUE, MediaType.APPLICATION_CBOR_VALUE})
     public ResponseEntity<Object> transfer(@PathVariable("accountId") String sourceAccountId,
-                                           @RequestBody @Valid AccountTransferMoneyDto request) {
+                                           @RequestBody @Valid AccountTransferMoneyDto request,
+                                           @RequestHeader(value = REQUEST_TIMEOUT_HEADER, required = false)
+                                           Long requestTimeoutMillis) {
         log.info("Transfer money details: {}", request);
+        if (requestTimeoutMillis != null && requestTimeoutMillis <= 0) {
+            return new ResponseEntity<>(REQUEST_TIMEOUT_HEADER + " must be positive", HttpStatus.BAD_REQUEST);
+        }
+        Duration timeout = requestTimeoutMillis != null
+                ? Duration.ofMillis(Math.min(requestTimeoutMillis, maxRequestTimeout.toMillis()))
+                : accountsService.getDefaultTimeout();
         try {
-            accountsService.transfer(sourceAccountId, request.getTargetAccountId(), request.getAmount());
+            accountsService.transfer(sourceAccountId, request.getTargetAccountId(), request.getAmount(), timeout);
+        } catch (TransferTimeoutException ex) {
+            return new ResponseEntity<>(ex.getMessage(), HttpStatus.SERVICE_UNAVAILABLE);
         } catch (AccountException ex) {
             return new ResponseEntity<>(ex.getMessage(), HttpStatus.BAD_REQUEST);
         } catch (Exception ex) {
@@ -64,4 +136,20 @@ public class AccountsController {
         return new ResponseEntity<>(HttpStatus.OK);
     }
 
+    private static boolean matches(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String trimmed = candidate.trim();
+            if (trimmed.startsWith("W/")) {
+                trimmed = trimmed.substring(2);
+            }
+            if (trimmed.equals("*") || trimmed.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
 }
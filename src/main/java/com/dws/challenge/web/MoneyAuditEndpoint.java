@@ -0,0 +1,37 @@
+package com.dws.challenge.web;
+
+import com.dws.challenge.service.MoneyAuditService;
+import com.dws.challenge.service.MoneyAuditService.AuditResult;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+/*
+ * GET /actuator/moneyaudit returns the last audit result, POST acknowledges the latched alert.
+ */
+@Component
+@Endpoint(id = "moneyaudit")
+@Slf4j
+public class MoneyAuditEndpoint {
+
+    private final MoneyAuditService moneyAuditService;
+
+    @Autowired
+    public MoneyAuditEndpoint(MoneyAuditService moneyAuditService) {
+        this.moneyAuditService = moneyAuditService;
+    }
+
+    @ReadOperation
+    public AuditResult lastResult() {
+        return moneyAuditService.getLastResult();
+    }
+
+    @WriteOperation
+    public void acknowledgeAlert() {
+        log.info("Acknowledging money audit alert");
+        moneyAuditService.acknowledgeAlert();
+    }
+}
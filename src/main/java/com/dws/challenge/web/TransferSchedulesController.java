@@ -0,0 +1,66 @@
+package com.dws.challenge.web;
+
+import static com.dws.challenge.config.WireFormatConfig.APPLICATION_SMILE_VALUE;
+
+import com.dws.challenge.domain.ScheduledTransfer;
+import com.dws.challenge.dto.TransferScheduleDto;
+import com.dws.challenge.exception.AccountException;
+import com.dws.challenge.exception.ScheduleNotFoundException;
+import com.dws.challenge.service.TransferSchedulerService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.validation.Valid;
+import java.util.Collection;
+
+@RestController
+@RequestMapping("/v1/accounts/{accountId}/schedules")
+@Slf4j
+public class TransferSchedulesController {
+
+    private final TransferSchedulerService transferSchedulerService;
+
+    @Autowired
+    public TransferSchedulesController(TransferSchedulerService transferSchedulerService) {
+        this.transferSchedulerService = transferSchedulerService;
+    }
+
+    @PostMapping(consumes = {MediaType.APPLICATION_JSON_VALUE, APPLICATION_SMILE_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    public ResponseEntity<Object> createSchedule(@PathVariable("accountId") String sourceAccountId,
+                                                 @RequestBody @Valid TransferScheduleDto request) {
+        log.info("Scheduling transfer from account {}: {}", sourceAccountId, request);
+        try {
+            ScheduledTransfer schedule = transferSchedulerService.createSchedule(sourceAccountId, request);
+            return new ResponseEntity<>(schedule, HttpStatus.CREATED);
+        } catch (AccountException ex) {
+            return new ResponseEntity<>(ex.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    @GetMapping
+    public Collection<ScheduledTransfer> getSchedules(@PathVariable("accountId") String sourceAccountId) {
+        return transferSchedulerService.getSchedules(sourceAccountId);
+    }
+
+    @DeleteMapping(path = "/{scheduleId}")
+    public ResponseEntity<Object> cancelSchedule(@PathVariable("accountId") String sourceAccountId,
+                                                 @PathVariable String scheduleId) {
+        log.info("Cancelling schedule {} of account {}", scheduleId, sourceAccountId);
+        try {
+            transferSchedulerService.cancelSchedule(sourceAccountId, scheduleId);
+        } catch (ScheduleNotFoundException ex) {
+            return new ResponseEntity<>(ex.getMessage(), HttpStatus.NOT_FOUND);
+        }
+        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+    }
+}
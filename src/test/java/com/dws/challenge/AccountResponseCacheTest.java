@@ -0,0 +1,49 @@
+package com.dws.challenge;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.web.AccountResponseCache;
+import com.dws.challenge.web.AccountResponseCache.CachedAccountResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+class AccountResponseCacheTest {
+
+    private final AccountResponseCache accountResponseCache =
+            new AccountResponseCache(List.of(new MappingJackson2HttpMessageConverter()), 2);
+
+    @Test
+    void get_servesUnchangedAccountFromCache() {
+        Account account = new Account("Id-1", new BigDecimal("10.00"));
+
+        CachedAccountResponse response = accountResponseCache.get(account, MediaType.APPLICATION_JSON);
+
+        assertThat(accountResponseCache.get(account, MediaType.APPLICATION_JSON)).isSameAs(response);
+    }
+
+    @Test
+    void get_boundsCacheSize() {
+        for (int i = 0; i < 100; i++) {
+            accountResponseCache.get(new Account("Id-" + i, new BigDecimal("10.00")), MediaType.APPLICATION_JSON);
+        }
+
+        assertThat(accountResponseCache.size()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void get_doesNotServeReplacedAccountInstance() {
+        Account account = new Account("Id-1", new BigDecimal("10.00"));
+        Account recreated = new Account("Id-1", new BigDecimal("99.00"));
+
+        CachedAccountResponse response = accountResponseCache.get(account, MediaType.APPLICATION_JSON);
+        CachedAccountResponse recreatedResponse = accountResponseCache.get(recreated, MediaType.APPLICATION_JSON);
+
+        assertThat(recreatedResponse).isNotSameAs(response);
+        assertThat(recreatedResponse.getETag()).isNotEqualTo(response.getETag());
+    }
+}
@@ -4,9 +4,12 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.setup.MockMvcBuilders.webAppContextSetup;
 
+import static com.dws.challenge.config.WireFormatConfig.APPLICATION_SMILE_VALUE;
 import static com.dws.challenge.AccountsUtil.SOURCE_ACCOUNT_BALANCE;
 import static com.dws.challenge.AccountsUtil.TARGET_ACCOUNT_BALANCE;
 import static com.dws.challenge.AccountsUtil.SOURCE_ACCOUNT_ID;
@@ -15,16 +18,25 @@ import static com.dws.challenge.AccountsUtil.TARGET_ACCOUNT_ID;
 import java.math.BigDecimal;
 
 import com.dws.challenge.domain.Account;
+import com.dws.challenge.dto.AccountTransferMoneyDto;
 import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.web.AccountsController;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.context.web.WebAppConfiguration;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.web.context.WebApplicationContext;
 
 @ExtendWith(SpringExtension.class)
@@ -40,6 +52,9 @@ class AccountsControllerTest {
     @Autowired
     private WebApplicationContext webApplicationContext;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     private static final String ACCOUNT_TRANSFER_MONEY_URI = "/v1/accounts/" + SOURCE_ACCOUNT_ID + "/transfer";
 
     @BeforeEach
@@ -110,6 +125,104 @@ class AccountsControllerTest {
                         content().string("{\"accountId\":\"" + uniqueAccountId + "\",\"balance\":123.45}"));
     }
 
+    @Test
+    void getAccountNotModified() throws Exception {
+        AccountsUtil.createAccount(SOURCE_ACCOUNT_ID, SOURCE_ACCOUNT_BALANCE, accountsService);
+        String eTag = this.mockMvc.perform(get("/v1/accounts/" + SOURCE_ACCOUNT_ID))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        this.mockMvc.perform(get("/v1/accounts/" + SOURCE_ACCOUNT_ID).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag));
+    }
+
+    @Test
+    void getAccountModifiedAfterRecreation() throws Exception {
+        AccountsUtil.createAccount(SOURCE_ACCOUNT_ID, SOURCE_ACCOUNT_BALANCE, accountsService);
+        String eTag = this.mockMvc.perform(get("/v1/accounts/" + SOURCE_ACCOUNT_ID))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        accountsService.getAccountsRepository().clearAccounts();
+        AccountsUtil.createAccount(SOURCE_ACCOUNT_ID, TARGET_ACCOUNT_BALANCE, accountsService);
+
+        this.mockMvc.perform(get("/v1/accounts/" + SOURCE_ACCOUNT_ID).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andExpect(content().string("{\"accountId\":\"" + SOURCE_ACCOUNT_ID + "\",\"balance\":450.50}"));
+    }
+
+    @Test
+    void getAccountModifiedAfterTransfer() throws Exception {
+        AccountsUtil.createAccount(SOURCE_ACCOUNT_ID, SOURCE_ACCOUNT_BALANCE, accountsService);
+        AccountsUtil.createAccount(TARGET_ACCOUNT_ID, TARGET_ACCOUNT_BALANCE, accountsService);
+        String eTag = this.mockMvc.perform(get("/v1/accounts/" + SOURCE_ACCOUNT_ID))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        accountsService.transfer(SOURCE_ACCOUNT_ID, TARGET_ACCOUNT_ID, new BigDecimal("49.50"));
+
+        this.mockMvc.perform(get("/v1/accounts/" + SOURCE_ACCOUNT_ID).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andExpect(content().string("{\"accountId\":\"" + SOURCE_ACCOUNT_ID + "\",\"balance\":500.00}"));
+    }
+
+    @Test
+    void streamBalanceEvents() throws Exception {
+        AccountsUtil.createAccount(SOURCE_ACCOUNT_ID, SOURCE_ACCOUNT_BALANCE, accountsService);
+        AccountsUtil.createAccount(TARGET_ACCOUNT_ID, TARGET_ACCOUNT_BALANCE, accountsService);
+
+        MvcResult result = this.mockMvc.perform(get("/v1/accounts/" + TARGET_ACCOUNT_ID + "/events"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        accountsService.transfer(SOURCE_ACCOUNT_ID, TARGET_ACCOUNT_ID, new BigDecimal("49.50"));
+
+        String events = awaitContent(result, "\"balance\":500.00");
+        assertThat(events).contains("event:balance");
+        Account targetAccount = accountsService.getAccount(TARGET_ACCOUNT_ID);
+        assertThat(events).contains("id:" + targetAccount.getIncarnation() + "-" + targetAccount.getVersion());
+    }
+
+    @Test
+    void streamBalanceEventsResumesWithoutRepeatingSeenBalance() throws Exception {
+        AccountsUtil.createAccount(SOURCE_ACCOUNT_ID, SOURCE_ACCOUNT_BALANCE, accountsService);
+        AccountsUtil.createAccount(TARGET_ACCOUNT_ID, TARGET_ACCOUNT_BALANCE, accountsService);
+        Account targetAccount = accountsService.getAccount(TARGET_ACCOUNT_ID);
+        String seenEventId = targetAccount.getIncarnation() + "-" + targetAccount.getVersion();
+
+        MvcResult result = this.mockMvc.perform(get("/v1/accounts/" + TARGET_ACCOUNT_ID + "/events")
+                        .header(AccountsController.LAST_EVENT_ID_HEADER, seenEventId))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        accountsService.transfer(SOURCE_ACCOUNT_ID, TARGET_ACCOUNT_ID, new BigDecimal("49.50"));
+
+        String events = awaitContent(result, "\"balance\":500.00");
+        assertThat(events).doesNotContain("\"balance\":450.50");
+    }
+
+    @Test
+    void streamBalanceEventsIgnoresResumeTokenOfPreviousIncarnation() throws Exception {
+        AccountsUtil.createAccount(TARGET_ACCOUNT_ID, TARGET_ACCOUNT_BALANCE, accountsService);
+        String seenEventId = accountsService.getAccount(TARGET_ACCOUNT_ID).getIncarnation() + "-1000";
+
+        accountsService.getAccountsRepository().clearAccounts();
+        AccountsUtil.createAccount(TARGET_ACCOUNT_ID, TARGET_ACCOUNT_BALANCE, accountsService);
+
+        MvcResult result = this.mockMvc.perform(get("/v1/accounts/" + TARGET_ACCOUNT_ID + "/events")
+                        .header(AccountsController.LAST_EVENT_ID_HEADER, seenEventId))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        awaitContent(result, "\"balance\":450.50");
+    }
+
+    @Test
+    void streamBalanceEventsMissingAccount() throws Exception {
+        this.mockMvc.perform(get("/v1/accounts/" + SOURCE_ACCOUNT_ID + "/events"))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     public void transfer() throws Exception {
         AccountsUtil.createAccount(SOURCE_ACCOUNT_ID, SOURCE_ACCOUNT_BALANCE, accountsService);
@@ -127,6 +240,93 @@ class AccountsControllerTest {
         assertThat(targetAccount.getBalance()).isEqualTo(new BigDecimal("601.00"));
     }
 
+    @Test
+    public void transferSmile() throws Exception {
+        AccountsUtil.createAccount(SOURCE_ACCOUNT_ID, SOURCE_ACCOUNT_BALANCE, accountsService);
+        AccountsUtil.createAccount(TARGET_ACCOUNT_ID, TARGET_ACCOUNT_BALANCE, accountsService);
+
+        AccountTransferMoneyDto request = new AccountTransferMoneyDto();
+        request.setTargetAccountId(TARGET_ACCOUNT_ID);
+        request.setAmount(new BigDecimal("150.50"));
+
+        this.mockMvc.perform(post(ACCOUNT_TRANSFER_MONEY_URI)
+                        .contentType(APPLICATION_SMILE_VALUE)
+                        .content(new ObjectMapper(new SmileFactory()).writeValueAsBytes(request)))
+                .andExpect(status().isOk());
+
+        assertThat(accountsService.getAccount(SOURCE_ACCOUNT_ID).getBalance()).isEqualTo(new BigDecimal("399.00"));
+        assertThat(accountsService.getAccount(TARGET_ACCOUNT_ID).getBalance()).isEqualTo(new BigDecimal("601.00"));
+    }
+
+    @Test
+    void getAccountCbor() throws Exception {
+        AccountsUtil.createAccount(SOURCE_ACCOUNT_ID, SOURCE_ACCOUNT_BALANCE, accountsService);
+
+        byte[] body = this.mockMvc.perform(get("/v1/accounts/" + SOURCE_ACCOUNT_ID).accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        Account account = new ObjectMapper(new CBORFactory()).readValue(body, Account.class);
+        assertThat(account.getAccountId()).isEqualTo(SOURCE_ACCOUNT_ID);
+        assertThat(account.getBalance()).isEqualByComparingTo(SOURCE_ACCOUNT_BALANCE);
+    }
+
+    @Test
+    public void transferNonPositiveRequestTimeout() throws Exception {
+        AccountsUtil.createAccount(SOURCE_ACCOUNT_ID, SOURCE_ACCOUNT_BALANCE, accountsService);
+        AccountsUtil.createAccount(TARGET_ACCOUNT_ID, TARGET_ACCOUNT_BALANCE, accountsService);
+        Counter expiredDeadlines = meterRegistry.counter(AccountsService.TRANSFER_TIMEOUTS_METER,
+                "reason", "deadline_expired");
+        double expiredDeadlinesBefore = expiredDeadlines.count();
+
+        for (long requestTimeout : new long[] {0, -5}) {
+            this.mockMvc.perform(post(ACCOUNT_TRANSFER_MONEY_URI)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .header(AccountsController.REQUEST_TIMEOUT_HEADER, requestTimeout)
+                            .content("{\"targetAccountId\":\"" + TARGET_ACCOUNT_ID + "\"," + "\"amount\":150.50}"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(content().string(AccountsController.REQUEST_TIMEOUT_HEADER + " must be positive"));
+        }
+
+        assertThat(expiredDeadlines.count()).isEqualTo(expiredDeadlinesBefore);
+        assertThat(accountsService.getAccount(SOURCE_ACCOUNT_ID).getBalance()).isEqualTo(SOURCE_ACCOUNT_BALANCE);
+    }
+
+    @Test
+    public void transferWithRequestTimeout() throws Exception {
+        AccountsUtil.createAccount(SOURCE_ACCOUNT_ID, SOURCE_ACCOUNT_BALANCE, accountsService);
+        AccountsUtil.createAccount(TARGET_ACCOUNT_ID, TARGET_ACCOUNT_BALANCE, accountsService);
+
+        this.mockMvc.perform(post(ACCOUNT_TRANSFER_MONEY_URI)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header(AccountsController.REQUEST_TIMEOUT_HEADER, Long.MAX_VALUE)
+                        .content("{\"targetAccountId\":\"" + TARGET_ACCOUNT_ID + "\"," + "\"amount\":150.50}"))
+                .andExpect(status().isOk());
+
+        assertThat(accountsService.getAccount(SOURCE_ACCOUNT_ID).getBalance()).isEqualTo(new BigDecimal("399.00"));
+    }
+
+    @Test
+    void getAccountCborIgnoresJsonETag() throws Exception {
+        AccountsUtil.createAccount(SOURCE_ACCOUNT_ID, SOURCE_ACCOUNT_BALANCE, accountsService);
+        String jsonETag = this.mockMvc.perform(get("/v1/accounts/" + SOURCE_ACCOUNT_ID).accept(MediaType.APPLICATION_JSON))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        String cborETag = this.mockMvc.perform(get("/v1/accounts/" + SOURCE_ACCOUNT_ID)
+                        .accept(MediaType.APPLICATION_CBOR)
+                        .header(HttpHeaders.IF_NONE_MATCH, jsonETag))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        assertThat(cborETag).isNotEqualTo(jsonETag);
+        this.mockMvc.perform(get("/v1/accounts/" + SOURCE_ACCOUNT_ID)
+                        .accept(MediaType.APPLICATION_CBOR)
+                        .header(HttpHeaders.IF_NONE_MATCH, cborETag))
+                .andExpect(status().isNotModified());
+    }
+
     @Test
     public void transferNegativeAmount() throws Exception {
         this.mockMvc.perform(post(ACCOUNT_TRANSFER_MONEY_URI)
@@ -210,4 +410,15 @@ class AccountsControllerTest {
                 .andExpect(content().string("Not enough funds on the account id = " + SOURCE_ACCOUNT_ID));
     }
 
+    private static String awaitContent(MvcResult result, String expected) throws Exception {
+        long deadline = System.currentTimeMillis() + 5_000;
+        String content = result.getResponse().getContentAsString();
+        while (!content.contains(expected) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            content = result.getResponse().getContentAsString();
+        }
+        assertThat(content).contains(expected);
+        return content;
+    }
+
 }
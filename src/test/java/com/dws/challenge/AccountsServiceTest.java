@@ -16,6 +16,7 @@ import static com.dws.challenge.AccountsUtil.SOURCE_ACCOUNT_ID;
 import static com.dws.challenge.AccountsUtil.TARGET_ACCOUNT_ID;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
@@ -26,8 +27,11 @@ import com.dws.challenge.domain.Account;
 import com.dws.challenge.exception.AccountNotFoundException;
 import com.dws.challenge.exception.DuplicateAccountIdException;
 import com.dws.challenge.exception.NotEnoughFundsException;
+import com.dws.challenge.exception.TransferTimeoutException;
 import com.dws.challenge.service.AccountsService;
 import com.dws.challenge.service.NotificationService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -47,6 +51,9 @@ class AccountsServiceTest {
     @MockBean
     private NotificationService notificationService;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @BeforeEach
     public void setup() {
         this.accountsService.getAccountsRepository().clearAccounts();
@@ -97,6 +104,19 @@ class AccountsServiceTest {
         assertIterableEquals(expectedNotifications, argument.getAllValues());
     }
 
+    @Test
+    public void transfer_bumpsAccountVersions() {
+        createAccount(SOURCE_ACCOUNT_ID, SOURCE_ACCOUNT_BALANCE, accountsService);
+        createAccount(TARGET_ACCOUNT_ID, TARGET_ACCOUNT_BALANCE, accountsService);
+        long sourceVersion = accountsService.getAccount(SOURCE_ACCOUNT_ID).getVersion();
+        long targetVersion = accountsService.getAccount(TARGET_ACCOUNT_ID).getVersion();
+
+        accountsService.transfer(SOURCE_ACCOUNT_ID, TARGET_ACCOUNT_ID, new BigDecimal("10.00"));
+
+        assertThat(accountsService.getAccount(SOURCE_ACCOUNT_ID).getVersion()).isGreaterThan(sourceVersion);
+        assertThat(accountsService.getAccount(TARGET_ACCOUNT_ID).getVersion()).isGreaterThan(targetVersion);
+    }
+
     @Test
     public void transfer_failsOnDuplicateId() {
         createAccount(SOURCE_ACCOUNT_ID, SOURCE_ACCOUNT_BALANCE, accountsService);
@@ -133,6 +153,57 @@ class AccountsServiceTest {
         assertEquals(thrown.getMessage(), "Not enough funds on the account id = " + SOURCE_ACCOUNT_ID);
     }
 
+    @Test
+    public void transfer_failsOnLockWaitTimeout() throws Exception {
+        createAccount(SOURCE_ACCOUNT_ID, SOURCE_ACCOUNT_BALANCE, accountsService);
+        createAccount(TARGET_ACCOUNT_ID, TARGET_ACCOUNT_BALANCE, accountsService);
+        Counter lockWaitTimeouts = meterRegistry.counter(AccountsService.TRANSFER_TIMEOUTS_METER, "reason", "lock_wait");
+        double lockWaitTimeoutsBefore = lockWaitTimeouts.count();
+
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+        executorService.execute(() -> {
+            Account targetAccount = accountsService.getAccount(TARGET_ACCOUNT_ID);
+            try {
+                targetAccount.tryLock(1, TimeUnit.SECONDS);
+                locked.countDown();
+                release.await();
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            } finally {
+                targetAccount.unlock();
+            }
+        });
+        locked.await();
+
+        try {
+            assertThrows(TransferTimeoutException.class,
+                    () -> accountsService.transfer(SOURCE_ACCOUNT_ID, TARGET_ACCOUNT_ID, new BigDecimal("10.00"),
+                            Duration.ofMillis(50)),
+                    "Should have failed when the account lock is not acquired before the deadline");
+        } finally {
+            release.countDown();
+            executorService.shutdown();
+            executorService.awaitTermination(1, TimeUnit.MINUTES);
+        }
+
+        assertThat(lockWaitTimeouts.count()).isEqualTo(lockWaitTimeoutsBefore + 1);
+        assertEquals(SOURCE_ACCOUNT_BALANCE, accountsService.getAccount(SOURCE_ACCOUNT_ID).getBalance());
+        assertEquals(TARGET_ACCOUNT_BALANCE, accountsService.getAccount(TARGET_ACCOUNT_ID).getBalance());
+    }
+
+    @Test
+    public void transfer_failsOnExpiredDeadline() {
+        createAccount(SOURCE_ACCOUNT_ID, SOURCE_ACCOUNT_BALANCE, accountsService);
+        createAccount(TARGET_ACCOUNT_ID, TARGET_ACCOUNT_BALANCE, accountsService);
+
+        assertThrows(TransferTimeoutException.class,
+                () -> accountsService.transfer(SOURCE_ACCOUNT_ID, TARGET_ACCOUNT_ID, new BigDecimal("10.00"),
+                        Duration.ZERO),
+                "Should have failed when the deadline has already passed");
+    }
+
     @Test
     public void transfer_positiveWithConcurrency() throws InterruptedException {
         createAccount(SOURCE_ACCOUNT_ID, SOURCE_ACCOUNT_BALANCE, accountsService);
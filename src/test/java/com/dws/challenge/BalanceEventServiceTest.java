@@ -0,0 +1,100 @@
+package com.dws.challenge;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static com.dws.challenge.AccountsUtil.createAccount;
+
+import static com.dws.challenge.AccountsUtil.SOURCE_ACCOUNT_BALANCE;
+import static com.dws.challenge.AccountsUtil.TARGET_ACCOUNT_BALANCE;
+import static com.dws.challenge.AccountsUtil.SOURCE_ACCOUNT_ID;
+import static com.dws.challenge.AccountsUtil.TARGET_ACCOUNT_ID;
+
+import java.math.BigDecimal;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.service.BalanceEventService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest
+class BalanceEventServiceTest {
+
+    @Autowired
+    private AccountsService accountsService;
+
+    @Autowired
+    private BalanceEventService balanceEventService;
+
+    @BeforeEach
+    void setup() {
+        accountsService.getAccountsRepository().clearAccounts();
+        createAccount(SOURCE_ACCOUNT_ID, SOURCE_ACCOUNT_BALANCE, accountsService);
+        createAccount(TARGET_ACCOUNT_ID, TARGET_ACCOUNT_BALANCE, accountsService);
+    }
+
+    /*
+     * A completed emitter fails on its next send and unsubscribes, possibly removing the last subscriber of
+     * the account while another thread subscribes. No subscriber which is still open may get lost.
+     */
+    @Test
+    void subscribe_concurrentWithUnsubscribe() throws Exception {
+        int threads = 4;
+        int openBefore = balanceEventService.getSubscriberCount(TARGET_ACCOUNT_ID);
+        ExecutorService executor = Executors.newFixedThreadPool(threads + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean subscribing = new AtomicBoolean(true);
+
+        executor.execute(() -> {
+            try {
+                start.await();
+                while (subscribing.get()) {
+                    accountsService.transfer(SOURCE_ACCOUNT_ID, TARGET_ACCOUNT_ID, new BigDecimal("0.01"));
+                    accountsService.transfer(TARGET_ACCOUNT_ID, SOURCE_ACCOUNT_ID, new BigDecimal("0.01"));
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        CountDownLatch subscribed = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                    for (int j = 0; j < 500; j++) {
+                        balanceEventService.subscribe(TARGET_ACCOUNT_ID, null).complete();
+                    }
+                    // Stays open
+                    balanceEventService.subscribe(TARGET_ACCOUNT_ID, null);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    subscribed.countDown();
+                }
+            });
+        }
+
+        start.countDown();
+        assertThat(subscribed.await(30, TimeUnit.SECONDS)).isTrue();
+        subscribing.set(false);
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        // Every completed emitter is dropped on its next event
+        accountsService.transfer(SOURCE_ACCOUNT_ID, TARGET_ACCOUNT_ID, new BigDecimal("0.01"));
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (balanceEventService.getSubscriberCount(TARGET_ACCOUNT_ID) != openBefore + threads
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(balanceEventService.getSubscriberCount(TARGET_ACCOUNT_ID)).isEqualTo(openBefore + threads);
+    }
+}
@@ -0,0 +1,65 @@
+package com.dws.challenge;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.dws.challenge.service.HierarchicalTimingWheel;
+import com.dws.challenge.service.HierarchicalTimingWheel.Entry;
+import org.junit.jupiter.api.Test;
+
+class HierarchicalTimingWheelTest {
+
+    private static final long START = 1_000_000L;
+
+    // 10 ms ticks, 4 slots per level and 2 levels, so anything beyond 160 ms goes to the overflow list
+    private final HierarchicalTimingWheel<String> timingWheel = new HierarchicalTimingWheel<>(10, 2, 2, START);
+
+    private final List<String> expired = new ArrayList<>();
+
+    @Test
+    void advance_firesOnlyAfterDeadline() {
+        timingWheel.schedule("soon", START + 25);
+
+        timingWheel.advance(START + 29, expired::add);
+        assertThat(expired).isEmpty();
+
+        timingWheel.advance(START + 30, expired::add);
+        assertThat(expired).containsExactly("soon");
+        assertThat(timingWheel.size()).isZero();
+    }
+
+    @Test
+    void advance_cascadesFromHigherLevelsAndOverflow() {
+        timingWheel.schedule("level0", START + 30);
+        timingWheel.schedule("level1", START + 120);
+        timingWheel.schedule("overflow", START + 1_000);
+
+        timingWheel.advance(START + 999, expired::add);
+        assertThat(expired).containsExactly("level0", "level1");
+
+        timingWheel.advance(START + 1_000, expired::add);
+        assertThat(expired).containsExactly("level0", "level1", "overflow");
+    }
+
+    @Test
+    void schedule_pastDeadlineFiresOnNextTick() {
+        timingWheel.schedule("late", START - 500);
+
+        timingWheel.advance(START + 10, expired::add);
+        assertThat(expired).containsExactly("late");
+    }
+
+    @Test
+    void cancel_removesEntry() {
+        Entry<String> entry = timingWheel.schedule("cancelled", START + 120);
+        timingWheel.schedule("kept", START + 120);
+
+        assertThat(timingWheel.cancel(entry)).isTrue();
+        assertThat(timingWheel.cancel(entry)).isFalse();
+
+        timingWheel.advance(START + 200, expired::add);
+        assertThat(expired).containsExactly("kept");
+    }
+}
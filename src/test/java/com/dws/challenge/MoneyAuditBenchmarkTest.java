@@ -0,0 +1,112 @@
+package com.dws.challenge;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.exception.AccountException;
+import com.dws.challenge.repository.AccountsRepository;
+import com.dws.challenge.repository.AccountsRepositoryInMemory;
+import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.service.BalanceEventService;
+import com.dws.challenge.service.MoneyAuditService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/*
+ * Transfer throughput with the money auditor disabled, enabled and enabled with audits running back to back.
+ * It is excluded from the regular test run, use "./gradlew benchmark" to run it.
+ */
+@Tag("benchmark")
+class MoneyAuditBenchmarkTest {
+
+    private static final int ACCOUNT_COUNT = 10_000;
+
+    private static final int THREADS = Runtime.getRuntime().availableProcessors();
+
+    private static final long WARMUP_MILLIS = 3_000;
+
+    private static final long MEASURED_MILLIS = 10_000;
+
+    @Test
+    void transferThroughput() throws InterruptedException {
+        double disabled = measure(false, false);
+        double enabled = measure(true, false);
+        double auditing = measure(true, true);
+
+        System.out.printf("auditor disabled          %,12.0f transfers/s%n", disabled);
+        System.out.printf("auditor enabled, idle     %,12.0f transfers/s (%+.1f%%)%n",
+                enabled, (enabled / disabled - 1) * 100);
+        System.out.printf("auditor enabled, auditing %,12.0f transfers/s (%+.1f%%)%n",
+                auditing, (auditing / disabled - 1) * 100);
+    }
+
+    private static double measure(boolean auditEnabled, boolean continuousAudit) throws InterruptedException {
+        AccountsRepository accountsRepository = new AccountsRepositoryInMemory();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        MoneyAuditService moneyAuditService = new MoneyAuditService(accountsRepository, meterRegistry,
+                auditEnabled, Duration.ofHours(1), System.getProperty("java.io.tmpdir"), 0, 0);
+        BalanceEventService balanceEventService = new BalanceEventService(accountsRepository, Duration.ofMinutes(1),
+                Duration.ofSeconds(5), 1, 0);
+        AccountsService accountsService = new AccountsService(accountsRepository, (account, description) -> { },
+                balanceEventService, moneyAuditService, meterRegistry, Duration.ofSeconds(5));
+
+        for (int i = 0; i < ACCOUNT_COUNT; i++) {
+            accountsService.createAccount(new Account("ID-" + i, new BigDecimal("1000.00")));
+        }
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicBoolean measuring = new AtomicBoolean(false);
+        LongAdder transfers = new LongAdder();
+        ExecutorService executorService = Executors.newFixedThreadPool(THREADS + 1);
+        for (int i = 0; i < THREADS; i++) {
+            executorService.execute(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (running.get()) {
+                    int source = random.nextInt(ACCOUNT_COUNT);
+                    int target = (source + 1 + random.nextInt(ACCOUNT_COUNT - 1)) % ACCOUNT_COUNT;
+                    try {
+                        accountsService.transfer("ID-" + source, "ID-" + target, new BigDecimal("1.00"));
+                    } catch (AccountException ex) {
+                        // not enough funds
+                    }
+                    if (measuring.get()) {
+                        transfers.increment();
+                    }
+                }
+            });
+        }
+        if (continuousAudit) {
+            executorService.execute(() -> {
+                while (running.get()) {
+                    assertThat(moneyAuditService.audit().isBalanced()).isTrue();
+                }
+            });
+        }
+
+        Thread.sleep(WARMUP_MILLIS);
+        measuring.set(true);
+        Thread.sleep(MEASURED_MILLIS);
+        measuring.set(false);
+        running.set(false);
+
+        executorService.shutdown();
+        executorService.awaitTermination(1, TimeUnit.MINUTES);
+        balanceEventService.stop();
+        moneyAuditService.stop();
+
+        if (auditEnabled) {
+            assertThat(moneyAuditService.audit().isBalanced()).isTrue();
+        }
+        return transfers.sum() * 1000.0 / MEASURED_MILLIS;
+    }
+}
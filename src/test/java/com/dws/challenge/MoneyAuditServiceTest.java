@@ -0,0 +1,170 @@
+package com.dws.challenge;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static com.dws.challenge.AccountsUtil.createAccount;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.exception.AccountException;
+import com.dws.challenge.repository.AccountsRepository;
+import com.dws.challenge.repository.AccountsRepositoryInMemory;
+import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.service.MoneyAuditService;
+import com.dws.challenge.service.MoneyAuditService.AuditResult;
+import com.dws.challenge.service.NotificationService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(properties = {"accounts.audit.interval=1h", "accounts.audit.dump-directory=build/money-audit-dumps"})
+class MoneyAuditServiceTest {
+
+    private static final int ACCOUNT_COUNT = 20;
+
+    @Autowired
+    private AccountsService accountsService;
+
+    @Autowired
+    private MoneyAuditService moneyAuditService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @MockBean
+    private NotificationService notificationService;
+
+    @BeforeEach
+    public void setup() {
+        this.accountsService.getAccountsRepository().clearAccounts();
+        for (int i = 0; i < ACCOUNT_COUNT; i++) {
+            createAccount("ID-" + i, new BigDecimal("1000.00"), accountsService);
+        }
+    }
+
+    @Test
+    public void audit_balancedWithConcurrentTransfers() throws InterruptedException {
+        moneyAuditService.audit();
+
+        int numberOfThreads = 8;
+        AtomicBoolean running = new AtomicBoolean(true);
+        ExecutorService executorService = Executors.newFixedThreadPool(numberOfThreads);
+        for (int i = 0; i < numberOfThreads; i++) {
+            executorService.execute(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (running.get()) {
+                    int source = random.nextInt(ACCOUNT_COUNT);
+                    int target = (source + 1 + random.nextInt(ACCOUNT_COUNT - 1)) % ACCOUNT_COUNT;
+                    try {
+                        accountsService.transfer("ID-" + source, "ID-" + target,
+                                new BigDecimal(random.nextInt(1, 10_000)).movePointLeft(2));
+                    } catch (AccountException ex) {
+                        // not enough funds is expected with random amounts
+                    }
+                }
+            });
+        }
+
+        List<AuditResult> results = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            results.add(moneyAuditService.audit());
+        }
+        running.set(false);
+        executorService.shutdown();
+        executorService.awaitTermination(1, TimeUnit.MINUTES);
+        results.add(moneyAuditService.audit());
+
+        assertThat(results).allMatch(AuditResult::isBalanced);
+        assertThat(results).noneMatch(AuditResult::isRebased);
+        assertThat(results.get(results.size() - 1).getTotal()).isEqualByComparingTo("20000.00");
+    }
+
+    @Test
+    public void audit_detectsBalanceChangedOutsideTransfers() {
+        moneyAuditService.audit();
+        double discrepanciesBefore = meterRegistry.counter(MoneyAuditService.DISCREPANCIES_METER).count();
+
+        accountsService.getAccount("ID-0").setBalance(new BigDecimal("1100.00"));
+        AuditResult result = moneyAuditService.audit();
+
+        assertThat(result.isBalanced()).isFalse();
+        assertThat(result.getTotal().subtract(result.getExpected())).isEqualByComparingTo("100.00");
+        assertThat(meterRegistry.counter(MoneyAuditService.DISCREPANCIES_METER).count())
+                .isEqualTo(discrepanciesBefore + 1);
+        assertThat(meterRegistry.get(MoneyAuditService.ALERT_METER).gauge().value()).isEqualTo(1);
+
+        assertThat(meterRegistry.get(MoneyAuditService.LAST_DISCREPANCY_METER).gauge().value()).isPositive();
+
+        // Latched until acknowledged
+        assertThat(moneyAuditService.audit().isBalanced()).isTrue();
+        assertThat(meterRegistry.get(MoneyAuditService.ALERT_METER).gauge().value()).isEqualTo(1);
+
+        moneyAuditService.acknowledgeAlert();
+        assertThat(meterRegistry.get(MoneyAuditService.ALERT_METER).gauge().value()).isEqualTo(0);
+    }
+
+    @Test
+    public void audit_keepsAtMostDumpMaxFiles(@TempDir Path dumpDirectory) throws IOException {
+        AccountsRepository accountsRepository = new AccountsRepositoryInMemory();
+        MoneyAuditService service = new MoneyAuditService(accountsRepository, new SimpleMeterRegistry(), true,
+                Duration.ofHours(1), dumpDirectory.toString(), 10, 2);
+        Account account = new Account("ID-dump", new BigDecimal("1000.00"));
+        account.lock();
+        try {
+            accountsRepository.createAccount(account);
+            service.recordCreated(account);
+        } finally {
+            account.unlock();
+        }
+        assertThat(service.audit().isBalanced()).isTrue();
+
+        for (int i = 1; i <= 3; i++) {
+            account.setBalance(account.getBalance().add(new BigDecimal("100.00")));
+            assertThat(service.audit().isBalanced()).isFalse();
+        }
+
+        try (Stream<Path> dumps = Files.list(dumpDirectory)) {
+            assertThat(dumps.count()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    public void audit_reportsAccountAddedOutsideAccountsService(@TempDir Path dumpDirectory) {
+        AccountsRepository accountsRepository = new AccountsRepositoryInMemory();
+        MoneyAuditService service = new MoneyAuditService(accountsRepository, new SimpleMeterRegistry(), true,
+                Duration.ofHours(1), dumpDirectory.toString(), 10, 2);
+        service.audit();
+
+        accountsRepository.createAccount(new Account("ID-unregistered", new BigDecimal("1000.00")));
+        AuditResult result = service.audit();
+
+        assertThat(result.isBalanced()).isFalse();
+        assertThat(result.getUnregistered()).isEqualTo(1);
+        assertThat(result.getTotal()).isEqualByComparingTo("1000.00");
+
+        // Adopted from then on
+        AuditResult next = service.audit();
+        assertThat(next.isBalanced()).isTrue();
+        assertThat(next.getAccountCount()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,123 @@
+package com.dws.challenge;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static com.dws.challenge.AccountsUtil.createAccount;
+
+import static com.dws.challenge.AccountsUtil.SOURCE_ACCOUNT_BALANCE;
+import static com.dws.challenge.AccountsUtil.TARGET_ACCOUNT_BALANCE;
+import static com.dws.challenge.AccountsUtil.SOURCE_ACCOUNT_ID;
+import static com.dws.challenge.AccountsUtil.TARGET_ACCOUNT_ID;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+
+import com.dws.challenge.domain.ScheduledTransfer;
+import com.dws.challenge.dto.TransferScheduleDto;
+import com.dws.challenge.exception.AccountNotFoundException;
+import com.dws.challenge.exception.ScheduleNotFoundException;
+import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.service.TransferSchedulerService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest
+class TransferSchedulerServiceTest {
+
+    @Autowired
+    private AccountsService accountsService;
+
+    @Autowired
+    private TransferSchedulerService transferSchedulerService;
+
+    @BeforeEach
+    public void setup() {
+        this.accountsService.getAccountsRepository().clearAccounts();
+        createAccount(SOURCE_ACCOUNT_ID, SOURCE_ACCOUNT_BALANCE, accountsService);
+        createAccount(TARGET_ACCOUNT_ID, TARGET_ACCOUNT_BALANCE, accountsService);
+    }
+
+    @Test
+    public void createSchedule_executesDueTransfer() throws InterruptedException {
+        ScheduledTransfer schedule = transferSchedulerService.createSchedule(SOURCE_ACCOUNT_ID,
+                scheduleRequest(Instant.now().plusMillis(200), null));
+
+        assertThat(transferSchedulerService.getSchedules(SOURCE_ACCOUNT_ID)).containsExactly(schedule);
+
+        waitForBalance(TARGET_ACCOUNT_ID, new BigDecimal("460.50"));
+        assertThat(accountsService.getAccount(SOURCE_ACCOUNT_ID).getBalance()).isEqualTo(new BigDecimal("539.50"));
+        assertThat(transferSchedulerService.getSchedules(SOURCE_ACCOUNT_ID)).isEmpty();
+    }
+
+    @Test
+    public void createSchedule_repeatsRecurringTransfer() throws InterruptedException {
+        ScheduledTransfer schedule = transferSchedulerService.createSchedule(SOURCE_ACCOUNT_ID,
+                scheduleRequest(Instant.now(), Duration.ofSeconds(1)));
+
+        waitForBalance(TARGET_ACCOUNT_ID, new BigDecimal("470.50"));
+        transferSchedulerService.cancelSchedule(SOURCE_ACCOUNT_ID, schedule.getScheduleId());
+
+        assertThat(transferSchedulerService.getSchedules(SOURCE_ACCOUNT_ID)).isEmpty();
+    }
+
+    @Test
+    public void createSchedule_skipsMissedOccurrences() throws InterruptedException {
+        ScheduledTransfer schedule = transferSchedulerService.createSchedule(SOURCE_ACCOUNT_ID,
+                scheduleRequest(Instant.parse("2020-01-01T00:00:00Z"), Duration.ofSeconds(1)));
+
+        waitForBalance(TARGET_ACCOUNT_ID, new BigDecimal("460.50"));
+        Thread.sleep(500);
+        transferSchedulerService.cancelSchedule(SOURCE_ACCOUNT_ID, schedule.getScheduleId());
+
+        assertThat(accountsService.getAccount(TARGET_ACCOUNT_ID).getBalance()).isLessThanOrEqualTo(new BigDecimal("470.50"));
+        assertThat(schedule.getNextExecutionTime()).isAfter(Instant.now().minusSeconds(1));
+    }
+
+    @Test
+    public void cancelSchedule_preventsTransfer() throws InterruptedException {
+        ScheduledTransfer schedule = transferSchedulerService.createSchedule(SOURCE_ACCOUNT_ID,
+                scheduleRequest(Instant.now().plusMillis(300), null));
+
+        transferSchedulerService.cancelSchedule(SOURCE_ACCOUNT_ID, schedule.getScheduleId());
+        Thread.sleep(600);
+
+        assertThat(accountsService.getAccount(SOURCE_ACCOUNT_ID).getBalance()).isEqualTo(SOURCE_ACCOUNT_BALANCE);
+        assertThrows(ScheduleNotFoundException.class,
+                () -> transferSchedulerService.cancelSchedule(SOURCE_ACCOUNT_ID, schedule.getScheduleId()),
+                "Should have failed when cancelling the schedule twice");
+    }
+
+    @Test
+    public void createSchedule_failsOnMissingTargetAccount() {
+        TransferScheduleDto request = scheduleRequest(Instant.now(), null);
+        request.setTargetAccountId("ID-missing");
+
+        assertThrows(AccountNotFoundException.class,
+                () -> transferSchedulerService.createSchedule(SOURCE_ACCOUNT_ID, request),
+                "Should have failed when scheduling a transfer to the missing account");
+    }
+
+    private static TransferScheduleDto scheduleRequest(Instant executeAt, Duration interval) {
+        TransferScheduleDto request = new TransferScheduleDto();
+        request.setTargetAccountId(TARGET_ACCOUNT_ID);
+        request.setAmount(new BigDecimal("10.00"));
+        request.setExecuteAt(executeAt);
+        request.setInterval(interval);
+        return request;
+    }
+
+    private void waitForBalance(String accountId, BigDecimal expectedBalance) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (accountsService.getAccount(accountId).getBalance().compareTo(expectedBalance) != 0
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(accountsService.getAccount(accountId).getBalance()).isEqualByComparingTo(expectedBalance);
+    }
+}
@@ -0,0 +1,140 @@
+package com.dws.challenge;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.setup.MockMvcBuilders.webAppContextSetup;
+
+import static com.dws.challenge.AccountsUtil.SOURCE_ACCOUNT_BALANCE;
+import static com.dws.challenge.AccountsUtil.TARGET_ACCOUNT_BALANCE;
+import static com.dws.challenge.AccountsUtil.SOURCE_ACCOUNT_ID;
+import static com.dws.challenge.AccountsUtil.TARGET_ACCOUNT_ID;
+
+import java.util.ArrayList;
+
+import com.dws.challenge.domain.ScheduledTransfer;
+import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.service.TransferSchedulerService;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.context.WebApplicationContext;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest
+@WebAppConfiguration
+class TransferSchedulesControllerTest {
+
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AccountsService accountsService;
+
+    @Autowired
+    private TransferSchedulerService transferSchedulerService;
+
+    @Autowired
+    private WebApplicationContext webApplicationContext;
+
+    private static final String SCHEDULES_URI = "/v1/accounts/" + SOURCE_ACCOUNT_ID + "/schedules";
+
+    @BeforeEach
+    void prepareMockMvc() {
+        this.mockMvc = webAppContextSetup(this.webApplicationContext).build();
+
+        // Reset the existing schedules and accounts before each test.
+        for (ScheduledTransfer schedule : new ArrayList<>(transferSchedulerService.getSchedules(SOURCE_ACCOUNT_ID))) {
+            transferSchedulerService.cancelSchedule(SOURCE_ACCOUNT_ID, schedule.getScheduleId());
+        }
+        accountsService.getAccountsRepository().clearAccounts();
+        AccountsUtil.createAccount(SOURCE_ACCOUNT_ID, SOURCE_ACCOUNT_BALANCE, accountsService);
+        AccountsUtil.createAccount(TARGET_ACCOUNT_ID, TARGET_ACCOUNT_BALANCE, accountsService);
+    }
+
+    @Test
+    void createSchedule() throws Exception {
+        this.mockMvc.perform(post(SCHEDULES_URI).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"targetAccountId\":\"" + TARGET_ACCOUNT_ID + "\",\"amount\":10.50," +
+                                "\"executeAt\":\"2099-01-01T00:00:00Z\",\"interval\":\"PT1H\"}"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.scheduleId").isNotEmpty())
+                .andExpect(jsonPath("$.sourceAccountId").value(SOURCE_ACCOUNT_ID))
+                .andExpect(jsonPath("$.targetAccountId").value(TARGET_ACCOUNT_ID))
+                .andExpect(jsonPath("$.amount").value(10.50))
+                .andExpect(jsonPath("$.nextExecutionTime").value("2099-01-01T00:00:00Z"))
+                .andExpect(jsonPath("$.interval").value("PT1H"))
+                .andExpect(jsonPath("$.recurring").value(true))
+                .andExpect(jsonPath("$.cancelled").doesNotExist());
+    }
+
+    @Test
+    void createScheduleInThePast() throws Exception {
+        this.mockMvc.perform(post(SCHEDULES_URI).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"targetAccountId\":\"" + TARGET_ACCOUNT_ID + "\",\"amount\":10.50," +
+                                "\"executeAt\":\"2020-01-01T00:00:00Z\"}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void createScheduleTooShortInterval() throws Exception {
+        this.mockMvc.perform(post(SCHEDULES_URI).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"targetAccountId\":\"" + TARGET_ACCOUNT_ID + "\",\"amount\":10.50," +
+                                "\"executeAt\":\"2099-01-01T00:00:00Z\",\"interval\":\"PT0.5S\"}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void createScheduleNegativeAmount() throws Exception {
+        this.mockMvc.perform(post(SCHEDULES_URI).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"targetAccountId\":\"" + TARGET_ACCOUNT_ID + "\",\"amount\":-10.50," +
+                                "\"executeAt\":\"2099-01-01T00:00:00Z\"}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void createScheduleToMissingAccount() throws Exception {
+        this.mockMvc.perform(post(SCHEDULES_URI).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"targetAccountId\":\"ID-missing\",\"amount\":10.50," +
+                                "\"executeAt\":\"2099-01-01T00:00:00Z\"}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Account id = ID-missing not found!"));
+    }
+
+    @Test
+    void listAndCancelSchedule() throws Exception {
+        String response = this.mockMvc.perform(post(SCHEDULES_URI).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"targetAccountId\":\"" + TARGET_ACCOUNT_ID + "\",\"amount\":10.50," +
+                                "\"executeAt\":\"2099-01-01T00:00:00Z\"}"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        String scheduleId = JsonPath.read(response, "$.scheduleId");
+
+        this.mockMvc.perform(get(SCHEDULES_URI))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].scheduleId").value(scheduleId))
+                .andExpect(jsonPath("$[0].recurring").value(false));
+
+        this.mockMvc.perform(delete(SCHEDULES_URI + "/" + scheduleId))
+                .andExpect(status().isNoContent());
+
+        this.mockMvc.perform(get(SCHEDULES_URI))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+
+        this.mockMvc.perform(delete(SCHEDULES_URI + "/" + scheduleId))
+                .andExpect(status().isNotFound())
+                .andExpect(content().string("Schedule id = " + scheduleId + " not found!"));
+    }
+}
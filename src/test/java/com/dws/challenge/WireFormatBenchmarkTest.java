@@ -0,0 +1,85 @@
+package com.dws.challenge;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Map;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.dto.AccountTransferMoneyDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/*
+ * Rough per-format cost of parsing a transfer request and writing an account response.
+ * It is excluded from the regular test run, use "./gradlew benchmark" to run it.
+ */
+@Tag("benchmark")
+class WireFormatBenchmarkTest {
+
+    private static final int WARMUP_ITERATIONS = 200_000;
+
+    private static final int MEASURED_ITERATIONS = 1_000_000;
+
+    private final Map<String, ObjectMapper> objectMappers = Map.of(
+            "json", new ObjectMapper(),
+            "smile", new ObjectMapper(new SmileFactory()),
+            "cbor", new ObjectMapper(new CBORFactory()));
+
+    @Test
+    void parseTransferRequestAndWriteAccount() throws IOException {
+        AccountTransferMoneyDto request = new AccountTransferMoneyDto();
+        request.setTargetAccountId("Id-1234567890");
+        request.setAmount(new BigDecimal("150.50"));
+        Account account = new Account("Id-1234567890", new BigDecimal("123456.78"));
+
+        for (Map.Entry<String, ObjectMapper> entry : objectMappers.entrySet()) {
+            ObjectMapper objectMapper = entry.getValue();
+            byte[] requestBody = objectMapper.writeValueAsBytes(request);
+
+            measure(objectMapper, requestBody, account, WARMUP_ITERATIONS);
+            long parseNanos = measureParse(objectMapper, requestBody, MEASURED_ITERATIONS);
+            long writeNanos = measureWrite(objectMapper, account, MEASURED_ITERATIONS);
+
+            System.out.printf("%-5s request %3d bytes, parse %6.1f ns/op, write %6.1f ns/op%n",
+                    entry.getKey(), requestBody.length,
+                    (double) parseNanos / MEASURED_ITERATIONS, (double) writeNanos / MEASURED_ITERATIONS);
+
+            assertThat(objectMapper.readValue(requestBody, AccountTransferMoneyDto.class)).isEqualTo(request);
+        }
+    }
+
+    private static void measure(ObjectMapper objectMapper, byte[] requestBody, Account account, int iterations)
+            throws IOException {
+        measureParse(objectMapper, requestBody, iterations);
+        measureWrite(objectMapper, account, iterations);
+    }
+
+    private static long measureParse(ObjectMapper objectMapper, byte[] requestBody, int iterations)
+            throws IOException {
+        long blackhole = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            blackhole += objectMapper.readValue(requestBody, AccountTransferMoneyDto.class).getAmount().scale();
+        }
+        long elapsed = System.nanoTime() - start;
+        assertThat(blackhole).isPositive();
+        return elapsed;
+    }
+
+    private static long measureWrite(ObjectMapper objectMapper, Account account, int iterations)
+            throws IOException {
+        long blackhole = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            blackhole += objectMapper.writeValueAsBytes(account).length;
+        }
+        long elapsed = System.nanoTime() - start;
+        assertThat(blackhole).isPositive();
+        return elapsed;
+    }
+}